@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+/*
+ * Выгрузки в NDJSON (application/x-ndjson), по одному объекту на строку.
+ * Ответ пишется потоком в отдельном потоке обработки запроса, время выгрузки ограничено
+ * spring.mvc.async.request-timeout.
+ */
+@RestController
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/films:export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportFilms);
+    }
+
+    @GetMapping("/users:export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportUsers);
+    }
+
+    @GetMapping("/films/likes:export")
+    public ResponseEntity<StreamingResponseBody> exportLikes() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportLikes);
+    }
+
+    @GetMapping("/users/friends:export")
+    public ResponseEntity<StreamingResponseBody> exportFriends() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportFriends);
+    }
+}
\ No newline at end of file
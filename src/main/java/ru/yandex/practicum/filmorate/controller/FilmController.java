@@ -4,11 +4,15 @@ import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -38,8 +42,10 @@ public class FilmController {
     }
 
     @GetMapping
-    public Collection<Film> findAllFilms() {
-        return filmService.findAllFilms();
+    public ResponseEntity<Collection<Film>> findAllFilms(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) throws ValidationException {
+        return PageResponses.of(filmService.findFilms(after, limit));
     }
 
     @PutMapping
@@ -57,6 +63,12 @@ public class FilmController {
         filmService.addLike(id, userId);
     }
 
+    @PostMapping("/likes:batch")
+    public List<LikeOperationResult> applyLikes(@RequestBody List<LikeOperation> operations)
+            throws ValidationException {
+        return filmService.applyLikes(operations);
+    }
+
     @GetMapping("/popular")
     public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10", required = false) long count,
                                       @RequestParam(value = "genreId", required = false) Integer genreId,
@@ -73,6 +85,13 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable long id,
+                                      @RequestParam(value = "count", defaultValue = "10", required = false) int count)
+            throws ValidationException {
+        return filmService.getSimilarFilms(id, count);
+    }
+
     @GetMapping("/director/{directorId}")
     public Collection<Film> getDirectorFilms(@PathVariable long directorId, @RequestParam String sortBy) {
         if (sortBy.equals("likes")) {
@@ -92,8 +111,17 @@ public class FilmController {
 
     @GetMapping("/search")
     public List<Film> searchFilm(@RequestParam(value = "query", required = true) String query,
-                                 @RequestParam(value = "by", required = true) String by) throws ValidationException {
-        return filmService.searchFilm(query, by);
+                                 @RequestParam(value = "by", required = true) String by,
+                                 @RequestParam(value = "fuzzy", defaultValue = "false", required = false) boolean fuzzy)
+            throws ValidationException {
+        return filmService.searchFilm(query, by, fuzzy);
+    }
+
+    @GetMapping("/search/suggest")
+    public List<Suggestion> suggest(@RequestParam(value = "prefix", required = true) String prefix,
+                                    @RequestParam(value = "count", defaultValue = "10", required = false) int count)
+            throws ValidationException {
+        return filmService.suggest(prefix, count);
     }
 
     @GetMapping("/common")
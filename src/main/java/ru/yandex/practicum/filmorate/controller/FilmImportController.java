@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FilmImportController {
+    FilmImportService filmImportService;
+
+    @Autowired
+    public FilmImportController(FilmImportService filmImportService) {
+        this.filmImportService = filmImportService;
+    }
+
+    /*
+     * Тело запроса - NDJSON (application/x-ndjson), по одному фильму на строку. Тело читается потоком,
+     * поэтому размер импорта не ограничен памятью.
+     */
+    @PostMapping("/films:import")
+    public ImportReport importFilms(InputStream body) throws IOException {
+        return filmImportService.importFilms(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -34,4 +35,12 @@ public class GenreController {
     public Genre getGenreById(@PathVariable int id) {
         return genreService.getGenreById(id);
     }
+
+    /*
+     * Справочник жанров хранится в памяти; после изменения таблицы genres его нужно перечитать этим запросом.
+     */
+    @PostMapping("/refresh")
+    public Collection<Genre> refresh() {
+        return genreService.refresh();
+    }
 }
\ No newline at end of file
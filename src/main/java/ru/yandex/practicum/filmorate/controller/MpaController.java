@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -34,4 +35,12 @@ public class MpaController {
     public Mpa getMpaById(@PathVariable int id) {
         return mpaService.getMpaById(id);
     }
+
+    /*
+     * Справочник MPA хранится в памяти; после изменения таблицы mpa его нужно перечитать этим запросом.
+     */
+    @PostMapping("/refresh")
+    public Collection<Mpa> refresh() {
+        return mpaService.refresh();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.Collection;
+
+/**
+ * Ответ со страницей списка: тело - записи страницы, а если за ней есть еще записи, то заголовки
+ * Link с rel="next" (тот же запрос с after, равным курсору) и X-Next-Cursor с самим курсором.
+ */
+final class PageResponses {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponses() {
+    }
+
+    static <T> ResponseEntity<Collection<T>> of(Page<T> page) {
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page.getItems());
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", page.getNextCursor())
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next))
+                .header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()))
+                .body(page.getItems());
+    }
+}
\ No newline at end of file
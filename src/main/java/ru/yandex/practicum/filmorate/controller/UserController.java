@@ -4,8 +4,11 @@ import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
@@ -40,8 +43,10 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> findAllUsers() {
-        return userService.findAllUsers();
+    public ResponseEntity<Collection<User>> findAllUsers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) throws ValidationException {
+        return PageResponses.of(userService.findUsers(after, limit));
     }
 
     @GetMapping(actionWithId)
@@ -54,6 +59,21 @@ public class UserController {
         return userService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/suggestions")
+    public List<User> getSuggestions(@PathVariable long id,
+                                     @RequestParam(value = "count", defaultValue = "10", required = false) int count) {
+        return userService.getSuggestions(id, count);
+    }
+
+    /*
+     * Число шагов по друзьям от id до otherId; -1, если пути нет.
+     * Если поиск превысил лимит filmorate.friends.distance-budget, возвращается 503: расстояние неизвестно.
+     */
+    @GetMapping("/{id}/distance/{otherId}")
+    public int getDistance(@PathVariable long id, @PathVariable long otherId) {
+        return userService.getDistance(id, otherId);
+    }
+
     @PutMapping(actionWithFriends)
     public void addFriend(@PathVariable long id, @PathVariable long friendId) throws DataAlreadyExistException {
         userService.addFriend(id, friendId);
@@ -70,8 +90,24 @@ public class UserController {
     }
 
     @GetMapping("/{id}/feed")
-    public List<Feed> getFeeds(@PathVariable long id) {
-        return userService.getFeeds(id);
+    public ResponseEntity<Collection<Feed>> getFeeds(@PathVariable long id,
+                                                     @RequestParam(value = "after", required = false) Long after,
+                                                     @RequestParam(value = "limit", required = false) Integer limit)
+            throws ValidationException {
+        return PageResponses.of(userService.getFeeds(id, after, limit));
+    }
+
+    @GetMapping("/{id}/timeline")
+    public List<Feed> getTimeline(@PathVariable long id,
+                                  @RequestParam(value = "before", required = false) Long before,
+                                  @RequestParam(value = "limit", required = false) Integer limit)
+            throws ValidationException {
+        return userService.getTimeline(id, before, limit);
+    }
+
+    @GetMapping("/{id}/feed/stream")
+    public SseEmitter streamFeeds(@PathVariable long id) {
+        return userService.streamFeeds(id);
     }
 
     @DeleteMapping(actionWithId)
@@ -6,6 +6,7 @@ import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface DirectorDao {
 
@@ -23,6 +24,10 @@ public interface DirectorDao {
 
     List<Director> getFilmDirectors(long filmId);
 
+    Map<Long, List<Director>> getFilmsDirectors(Collection<Long> filmIds);
+
+    Map<Long, List<Long>> getFilmDirectorIds();
+
     void deleteFilmDirectors(long filmId);
 
     void addFilmDirectors(Film film);
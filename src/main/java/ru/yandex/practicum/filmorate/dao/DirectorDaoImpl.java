@@ -6,24 +6,46 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.index.FilmCache;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 
-import java.util.Collection;
-import java.util.List;
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.*;
 
 @Component
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class DirectorDaoImpl implements DirectorDao {
     JdbcTemplate jdbcTemplate;
+    NamedParameterJdbcTemplate namedJdbcTemplate;
+    FilmSearchIndex searchIndex;
+    FilmCache filmCache;
 
     @Autowired
-    public DirectorDaoImpl(JdbcTemplate jdbcTemplate) {
+    public DirectorDaoImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           FilmSearchIndex searchIndex, FilmCache filmCache) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.searchIndex = searchIndex;
+        this.filmCache = filmCache;
+    }
+
+    @PostConstruct
+    private void loadSearchIndex() {
+        Map<Long, String> names = new HashMap<>();
+        for (Director director : getAllDirectors()) {
+            names.put(director.getId(), director.getName());
+        }
+        searchIndex.rebuildDirectors(names, getFilmDirectorIds());
     }
 
     private RowMapper<Director> getDirectorRowMapper() {
@@ -39,8 +61,15 @@ public class DirectorDaoImpl implements DirectorDao {
     @Override
     public void createDirector(Director director) {
         String sqlQuery = "insert into directors (name) values (?)";
-        jdbcTemplate.update(sqlQuery,
-                director.getName());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sqlQuery, new String[]{"director_id"});
+            statement.setString(1, director.getName());
+            return statement;
+        }, keyHolder);
+
+        director.setId(keyHolder.getKey().longValue());
+        searchIndex.putDirector(director.getId(), director.getName());
     }
 
     @Override
@@ -55,9 +84,10 @@ public class DirectorDaoImpl implements DirectorDao {
     @Override
     public void updateDirector(Director director) {
         String sql = "update directors set name = ? where director_id = ?";
-        jdbcTemplate.update(sql,
-                director.getName(),
-                director.getId());
+        if (jdbcTemplate.update(sql, director.getName(), director.getId()) > 0) {
+            searchIndex.putDirector(director.getId(), director.getName());
+            filmCache.invalidateDirector(director.getId());
+        }
     }
 
     @Override
@@ -67,6 +97,8 @@ public class DirectorDaoImpl implements DirectorDao {
 
         sql = "delete from directors where director_id = ?";
         jdbcTemplate.update(sql, id);
+        searchIndex.removeDirector(id);
+        filmCache.invalidateDirector(id);
     }
 
     @Override
@@ -101,19 +133,53 @@ public class DirectorDaoImpl implements DirectorDao {
         return jdbcTemplate.query(sql, getDirectorRowMapper(), filmId);
     }
 
+    @Override
+    public Map<Long, List<Director>> getFilmsDirectors(Collection<Long> filmIds) {
+        Map<Long, List<Director>> directors = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return directors;
+        }
+
+        String sql = "select fd.film_id, d.director_id, d.name " +
+                "FROM film_directors as fd " +
+                "join directors AS d on fd.director_id = d.director_id " +
+                "WHERE fd.film_id IN (:ids) " +
+                "ORDER BY fd.film_id, fd.id";
+
+        RowMapper<Director> directorRowMapper = getDirectorRowMapper();
+        namedJdbcTemplate.query(sql, Map.of("ids", filmIds), rs -> {
+            directors.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                    .add(directorRowMapper.mapRow(rs, rs.getRow()));
+        });
+        return directors;
+    }
+
+    @Override
+    public Map<Long, List<Long>> getFilmDirectorIds() {
+        Map<Long, List<Long>> directorIds = new HashMap<>();
+        jdbcTemplate.query("select film_id, director_id from film_directors", rs -> {
+            directorIds.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getLong("director_id"));
+        });
+        return directorIds;
+    }
+
     @Override
     public void deleteFilmDirectors(long filmId) {
         String sql = "delete from film_directors where film_id = ?";
         jdbcTemplate.update(sql, filmId);
+        searchIndex.removeFilmDirectors(filmId);
     }
 
     @Override
     public void addFilmDirectors(Film film) {
         String sql = "insert into film_directors (film_id, director_id) values (?, ?)";
         if (film.getDirectors() != null) {
+            List<Long> directorIds = new ArrayList<>();
             for (Director director : film.getDirectors()) {
                 jdbcTemplate.update(sql, film.getId(), director.getId());
+                directorIds.add(director.getId());
             }
+            searchIndex.addFilmDirectors(film.getId(), directorIds);
         }
     }
 
@@ -122,5 +188,7 @@ public class DirectorDaoImpl implements DirectorDao {
         String sql = "delete from directors CASCADE;" +
                 "ALTER TABLE directors ALTER COLUMN director_id RESTART WITH 1";
         jdbcTemplate.update(sql);
+        searchIndex.clearDirectors();
+        filmCache.clear();
     }
 }
\ No newline at end of file
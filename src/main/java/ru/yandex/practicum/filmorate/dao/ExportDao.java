@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public interface ExportDao {
+    /**
+     * Построчная выгрузка всех фильмов с рейтингом, жанрами и режиссерами в порядке id
+     *
+     * @param films приемник фильмов
+     */
+    void exportFilms(Consumer<Film> films);
+
+    void exportUsers(Consumer<User> users);
+
+    /**
+     * Построчная выгрузка лайков
+     *
+     * @param likes приемник пар (id фильма, id пользователя)
+     */
+    void exportLikes(BiConsumer<Long, Long> likes);
+
+    /**
+     * Построчная выгрузка дружбы
+     *
+     * @param friends приемник пар (id пользователя, id друга)
+     */
+    void exportFriends(BiConsumer<Long, Long> friends);
+}
\ No newline at end of file
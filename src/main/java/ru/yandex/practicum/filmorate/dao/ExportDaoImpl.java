@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.*;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка таблиц без загрузки их в память: строки читаются однонаправленным курсором
+ * порциями по filmorate.export.fetch-size и сразу передаются приемнику.
+ * Жанры и режиссеры фильма собираются в массивы (ARRAY_AGG) в том же запросе, без дозапросов на каждый фильм.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ExportDaoImpl implements ExportDao {
+    JdbcTemplate jdbcTemplate;
+    MpaDao mpaDao;
+    GenreDao genreDao;
+
+    @Autowired
+    public ExportDaoImpl(DataSource dataSource, MpaDaoImpl mpaDaoImpl, GenreDaoImpl genreDaoImpl,
+                         @Value("${filmorate.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.mpaDao = mpaDaoImpl;
+        this.genreDao = genreDaoImpl;
+    }
+
+    @Override
+    public void exportFilms(Consumer<Film> films) {
+        /*справочники рейтингов и жанров небольшие - их названия подставляются из памяти*/
+        Map<Integer, Mpa> mpaById = new HashMap<>();
+        for (Mpa mpa : mpaDao.getAllMpa()) {
+            mpaById.put(mpa.getId(), mpa);
+        }
+        Map<Integer, Genre> genresById = new HashMap<>();
+        for (Genre genre : genreDao.getAllGenres()) {
+            genresById.put(genre.getId(), genre);
+        }
+
+        String sqlQuery = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, " +
+                "(SELECT ARRAY_AGG(fg.genre_id ORDER BY fg.genre_id) FROM films_genres AS fg " +
+                "WHERE fg.film_id = f.film_id) AS genre_ids, " +
+                "(SELECT ARRAY_AGG(d.director_id ORDER BY d.director_id) FROM film_directors AS fd " +
+                "JOIN directors AS d ON d.director_id = fd.director_id WHERE fd.film_id = f.film_id) AS director_ids, " +
+                "(SELECT ARRAY_AGG(d.name ORDER BY d.director_id) FROM film_directors AS fd " +
+                "JOIN directors AS d ON d.director_id = fd.director_id WHERE fd.film_id = f.film_id) AS director_names " +
+                "FROM films AS f " +
+                "ORDER BY f.film_id";
+
+        jdbcTemplate.query(sqlQuery, rs -> {
+            List<Genre> genres = new ArrayList<>();
+            for (Object genreId : toArray(rs.getArray("genre_ids"))) {
+                genres.add(genresById.get(((Number) genreId).intValue()));
+            }
+            List<Director> directors = new ArrayList<>();
+            Object[] directorIds = toArray(rs.getArray("director_ids"));
+            Object[] directorNames = toArray(rs.getArray("director_names"));
+            for (int i = 0; i < directorIds.length; i++) {
+                directors.add(new Director(((Number) directorIds[i]).longValue(), (String) directorNames[i]));
+            }
+
+            films.accept(Film.builder()
+                    .id(rs.getLong("film_id"))
+                    .name(rs.getString("name"))
+                    .description(rs.getString("description"))
+                    .releaseDate(rs.getDate("release_date").toLocalDate())
+                    .duration(rs.getInt("duration"))
+                    .mpa(mpaById.get(rs.getInt("mpa_id")))
+                    .genres(genres)
+                    .directors(directors)
+                    .build());
+        });
+    }
+
+    @Override
+    public void exportUsers(Consumer<User> users) {
+        jdbcTemplate.query("SELECT user_id, name, email, login, birthday FROM users ORDER BY user_id",
+                rs -> {
+                    users.accept(User.builder()
+                            .id(rs.getLong("user_id"))
+                            .name(rs.getString("name"))
+                            .email(rs.getString("email"))
+                            .login(rs.getString("login"))
+                            .birthday(rs.getDate("birthday").toLocalDate())
+                            .build());
+                });
+    }
+
+    @Override
+    public void exportLikes(BiConsumer<Long, Long> likes) {
+        jdbcTemplate.query("SELECT film_id, user_id FROM likes ORDER BY id",
+                rs -> {
+                    likes.accept(rs.getLong("film_id"), rs.getLong("user_id"));
+                });
+    }
+
+    @Override
+    public void exportFriends(BiConsumer<Long, Long> friends) {
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY id",
+                rs -> {
+                    friends.accept(rs.getLong("user_id"), rs.getLong("friend_id"));
+                });
+    }
+
+    private static Object[] toArray(Array array) throws SQLException {
+        return array == null ? new Object[0] : (Object[]) array.getArray();
+    }
+}
\ No newline at end of file
@@ -3,11 +3,18 @@ package ru.yandex.practicum.filmorate.dao;
 import ru.yandex.practicum.filmorate.model.Feed;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public interface FeedDao {
 
     List<Feed> getFeeds(long id);
 
+    List<Feed> getFeeds(long id, long afterEventId, int limit);
+
+    List<Feed> getFeedsByIds(List<Long> ids);
+
+    void forEachEvent(BiConsumer<Long, Long> eventIdAndUserId);
+
     void addFriend(long userId, long friendId);
 
     void removeFriend(long userId, long friendId);
@@ -21,4 +28,12 @@ public interface FeedDao {
     void removeReview(long userId, long reviewId);
 
     void updateReview(long userId, long reviewId);
+
+    void flush();
+
+    void awaitPublished(int[] userIds);
+
+    void discardPending(long userId);
+
+    void discardPending();
 }
\ No newline at end of file
@@ -5,47 +5,95 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.Operation;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
-import java.util.List;
+import java.util.*;
+import java.util.function.BiConsumer;
 
 @Component
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class FeedDaoImpl implements FeedDao {
+    private static final int CHUNK_SIZE = 1000;
     JdbcTemplate jdbcTemplate;
-    private static final int ADD = 1;
-    private static final int REMOVE = 2;
-    private static final int UPDATE = 3;
-    private static final int LIKE = 1;
-    private static final int FRIEND = 2;
-    private static final int REVIEW = 3;
+    NamedParameterJdbcTemplate namedJdbcTemplate;
+    FeedWriter feedWriter;
 
     @Autowired
-    public FeedDaoImpl(JdbcTemplate jdbcTemplate) {
+    public FeedDaoImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate, FeedWriter feedWriter) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.feedWriter = feedWriter;
     }
 
     @Override
     public List<Feed> getFeeds(long userId) {
-        String sqlQuery = "SELECT F.EVENT_ID, F.TIME_STAMP, F.USER_ID, F.ENTITY_ID, ET.EVENT_NAME, O.OPERATION_NAME\n" +
-                "FROM FEEDS AS F\n" +
-                "LEFT OUTER JOIN EVENTS_TYPES AS ET ON F.EVENT_TYPE = ET.TYPE_ID\n" +
-                "LEFT OUTER JOIN OPERATIONS AS O ON F.OPERATION = O.OPERATION_ID\n" +
-                "WHERE F.USER_ID = ?";
+        feedWriter.awaitWritten(userId); //изменение сразу видно в ленте пользователя
+        String sqlQuery = "SELECT EVENT_ID, TIME_STAMP, USER_ID, ENTITY_ID, EVENT_TYPE, OPERATION\n" +
+                "FROM FEEDS\n" +
+                "WHERE USER_ID = ?\n" +
+                "ORDER BY EVENT_ID";
         return jdbcTemplate.query(sqlQuery, this::mapRowToFeed, userId);
     }
 
+    @Override
+    public List<Feed> getFeeds(long userId, long afterEventId, int limit) {
+        feedWriter.awaitWritten(userId); //изменение сразу видно в ленте пользователя
+        String sqlQuery = "SELECT EVENT_ID, TIME_STAMP, USER_ID, ENTITY_ID, EVENT_TYPE, OPERATION\n" +
+                "FROM FEEDS\n" +
+                "WHERE USER_ID = ? AND EVENT_ID > ?\n" +
+                "ORDER BY EVENT_ID\n" +
+                "LIMIT ?";
+        return jdbcTemplate.query(sqlQuery, this::mapRowToFeed, userId, afterEventId, limit);
+    }
+
+    @Override
+    public List<Feed> getFeedsByIds(List<Long> ids) {
+        Map<Long, Feed> feedsById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String sqlQuery = "SELECT EVENT_ID, TIME_STAMP, USER_ID, ENTITY_ID, EVENT_TYPE, OPERATION\n" +
+                    "FROM FEEDS\n" +
+                    "WHERE EVENT_ID IN (:ids)";
+            namedJdbcTemplate.query(sqlQuery, Map.of("ids", chunk), rs -> {
+                Feed feed = mapRowToFeed(rs, rs.getRow());
+                feedsById.put(feed.getEventId(), feed);
+            });
+        }
+
+        List<Feed> feeds = new ArrayList<>();
+        for (Long id : ids) {
+            Feed feed = feedsById.get(id);
+            if (feed != null) {
+                feeds.add(feed);
+            }
+        }
+        return feeds;
+    }
+
+    @Override
+    public void forEachEvent(BiConsumer<Long, Long> eventIdAndUserId) {
+        feedWriter.flush();
+        jdbcTemplate.query("SELECT EVENT_ID, USER_ID FROM FEEDS ORDER BY EVENT_ID",
+                rs -> {
+                    eventIdAndUserId.accept(rs.getLong("EVENT_ID"), rs.getLong("USER_ID"));
+                });
+    }
+
     private Feed mapRowToFeed(ResultSet resultSet, int rowNum) throws SQLException {
         return Feed.builder()
                 .timestamp(resultSet.getLong("TIME_STAMP"))
                 .userId(resultSet.getLong("USER_ID"))
-                .eventType(resultSet.getString("EVENT_NAME"))
-                .operation(resultSet.getString("OPERATION_NAME"))
+                .eventType(EventType.fromId(resultSet.getInt("EVENT_TYPE")).name())
+                .operation(Operation.fromId(resultSet.getInt("OPERATION")).name())
                 .eventId(resultSet.getLong("EVENT_ID"))
                 .entityId(resultSet.getLong("ENTITY_ID"))
                 .build();
@@ -53,43 +101,66 @@ public class FeedDaoImpl implements FeedDao {
 
     @Override
     public void addFriend(long userId, long friendId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), FRIEND, ADD, userId, friendId);
+        addEvent(userId, EventType.FRIEND, Operation.ADD, friendId);
     }
 
     @Override
     public void removeFriend(long userId, long friendId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), FRIEND, REMOVE, userId, friendId);
+        addEvent(userId, EventType.FRIEND, Operation.REMOVE, friendId);
     }
 
     @Override
     public void addLike(long filmId, long userId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), LIKE, ADD, userId, filmId);
+        addEvent(userId, EventType.LIKE, Operation.ADD, filmId);
     }
 
     @Override
     public void removeLike(long filmId, long userId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), LIKE, REMOVE, userId, filmId);
+        addEvent(userId, EventType.LIKE, Operation.REMOVE, filmId);
     }
 
     @Override
     public void addReview(long userId, long reviewId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), REVIEW, ADD, userId, reviewId);
+        addEvent(userId, EventType.REVIEW, Operation.ADD, reviewId);
     }
 
     @Override
     public void removeReview(long userId, long reviewId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), REVIEW, REMOVE, userId, reviewId);
+        addEvent(userId, EventType.REVIEW, Operation.REMOVE, reviewId);
     }
 
     @Override
     public void updateReview(long userId, long reviewId) {
-        String sqlQuery = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) VALUES (?, ?, ?, ?, ?)";
-        jdbcTemplate.update(sqlQuery, Instant.now().toEpochMilli(), REVIEW, UPDATE, userId, reviewId);
+        addEvent(userId, EventType.REVIEW, Operation.UPDATE, reviewId);
+    }
+
+    @Override
+    public void flush() {
+        feedWriter.flush();
+    }
+
+    @Override
+    public void awaitPublished(int[] userIds) {
+        feedWriter.awaitPublished(userIds);
+    }
+
+    @Override
+    public void discardPending(long userId) {
+        feedWriter.discard(feed -> feed.getUserId() == userId);
+    }
+
+    @Override
+    public void discardPending() {
+        feedWriter.discard(feed -> true);
+    }
+
+    private void addEvent(long userId, EventType eventType, Operation operation, long entityId) {
+        feedWriter.append(Feed.builder()
+                .timestamp(Instant.now().toEpochMilli())
+                .userId(userId)
+                .eventType(eventType.name())
+                .operation(operation.name())
+                .entityId(entityId)
+                .build());
     }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.Operation;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Асинхронная запись событий ленты. События складываются в ограниченную очередь,
+ * а отдельный поток пишет их в таблицу feeds пакетными вставками, когда набирается
+ * filmorate.feed.batch-size событий или проходит filmorate.feed.flush-interval-ms.
+ * Если очередь заполнена дольше filmorate.feed.offer-timeout-ms, вызывающий поток сам сбрасывает ее в БД.
+ * Для каждого пользователя считается число его событий, которые еще не записаны и не опубликованы.
+ * Чтение ленты сбрасывает очередь только если у пользователя есть такие события (awaitWritten),
+ * поэтому изменение сразу видно в ленте, а чтения без незаписанных событий БД не пишут.
+ * Сброс выполняется под блокировкой и в порядке очереди, поэтому event_id растут в порядке событий.
+ * Записанные пакеты публикуются в FeedEventBus уже после снятия блокировки сброса, но через отдельную
+ * очередь публикации, поэтому подписчики получают события в том же порядке.
+ */
+@Component
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FeedWriter {
+    private static final String INSERT = "INSERT INTO FEEDS (TIME_STAMP, EVENT_TYPE, OPERATION, USER_ID, ENTITY_ID) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    FeedEventBus eventBus;
+    BlockingQueue<Feed> queue;
+    int batchSize;
+    long flushIntervalMs;
+    long offerTimeoutMs;
+    Queue<List<Feed>> written = new ConcurrentLinkedQueue<>();
+    Map<Long, Integer> pendingByUser = new ConcurrentHashMap<>();
+    Lock flushLock = new ReentrantLock();
+    Lock publishLock = new ReentrantLock();
+    Object signal = new Object();
+    Thread writer = new Thread(this::run, "feed-writer");
+    @NonFinal
+    volatile boolean running;
+
+    @Autowired
+    public FeedWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, FeedEventBus eventBus,
+                      @Value("${filmorate.feed.queue-capacity:10000}") int queueCapacity,
+                      @Value("${filmorate.feed.batch-size:500}") int batchSize,
+                      @Value("${filmorate.feed.flush-interval-ms:50}") long flushIntervalMs,
+                      @Value("${filmorate.feed.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventBus = eventBus;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    @PostConstruct
+    private void start() {
+        running = true;
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    private void stop() throws InterruptedException {
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+    }
+
+    public void append(Feed feed) {
+        hold(feed);
+        try {
+            while (!queue.offer(feed, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushLock.lock();
+            try {
+                flushQueue();
+                insert(List.of(feed));
+            } finally {
+                flushLock.unlock();
+            }
+            publishWritten();
+            return;
+        }
+
+        if (queue.size() >= batchSize) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    /*
+     * Записывает в БД все события, поставленные в очередь до вызова.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushQueue();
+        } finally {
+            flushLock.unlock();
+        }
+        publishWritten();
+    }
+
+    /*
+     * Дожидается записи в БД событий пользователя, поставленных в очередь до вызова.
+     * Если таких событий нет, ничего не делает.
+     */
+    public void awaitWritten(long userId) {
+        if (pendingByUser.containsKey(userId)) {
+            flush();
+        }
+    }
+
+    /*
+     * Дожидается записи и публикации в FeedEventBus событий перечисленных пользователей,
+     * поставленных в очередь до вызова. В отличие от flush ждет и пакеты, которые в этот момент
+     * публикует другой поток.
+     */
+    public void awaitPublished(int[] userIds) {
+        for (int userId : userIds) {
+            if (pendingByUser.containsKey((long) userId)) {
+                flushLock.lock();
+                try {
+                    flushQueue();
+                } finally {
+                    flushLock.unlock();
+                }
+                publishLock.lock();
+                try {
+                    publishAll();
+                } finally {
+                    publishLock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    /*
+     * Убирает из очереди еще не записанные события, подходящие под условие, например события удаляемого
+     * пользователя: их строки все равно были бы удалены каскадно. Пакет, который пишется в этот момент,
+     * дописывается до конца, но оставшаяся очередь в БД не сбрасывается.
+     */
+    public void discard(Predicate<Feed> filter) {
+        flushLock.lock();
+        try {
+            queue.removeIf(feed -> {
+                if (!filter.test(feed)) {
+                    return false;
+                }
+                release(feed);
+                return true;
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQueue() {
+        List<Feed> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            insert(batch);
+            batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        }
+    }
+
+    /*
+     * Публикует записанные пакеты в порядке записи. Публикует тот поток, которому досталась блокировка
+     * публикации; остальные не ждут. Проверка очереди после снятия блокировки не дает пакету,
+     * добавленному в этот момент, остаться неопубликованным.
+     */
+    private void publishWritten() {
+        while (!written.isEmpty() && publishLock.tryLock()) {
+            try {
+                publishAll();
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    private void publishAll() {
+        List<Feed> feeds;
+        while ((feeds = written.poll()) != null) {
+            try {
+                eventBus.publish(feeds);
+            } finally {
+                feeds.forEach(this::release);
+            }
+        }
+    }
+
+    private void hold(Feed feed) {
+        pendingByUser.merge(feed.getUserId(), 1, Integer::sum);
+    }
+
+    private void release(Feed feed) {
+        pendingByUser.computeIfPresent(feed.getUserId(), (userId, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running && queue.size() < batchSize) {
+                        signal.wait(flushIntervalMs);
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка записи событий ленты.", e);
+            }
+        }
+    }
+
+    /*
+     * Пакет пишется в одной транзакции. Если вставка не удалась, транзакция откатывается и события
+     * пишутся по одному, чтобы одна ошибочная строка (например, событие удаленного пользователя)
+     * не потеряла весь пакет. Записанные события с присвоенными event_id ставятся в очередь публикации.
+     */
+    private void insert(List<Feed> batch) {
+        List<Feed> inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> jdbcTemplate.execute(
+                    (ConnectionCallback<List<Feed>>) connection -> insertBatch(connection, batch)));
+        } catch (DataAccessException e) {
+            log.warn("Пакетная запись событий ленты не удалась, события будут записаны по одному.", e);
+            inserted = new ArrayList<>();
+            for (Feed feed : batch) {
+                try {
+                    inserted.add(insertOne(feed));
+                } catch (DataAccessException rowException) {
+                    release(feed);
+                    log.error(String.format("Событие ленты пользователя с id # %d не записано: %s.",
+                            feed.getUserId(), rowException.getMessage()));
+                }
+            }
+        }
+        written.add(inserted);
+    }
+
+    private List<Feed> insertBatch(Connection connection, List<Feed> batch) throws SQLException {
+        List<Feed> inserted = new ArrayList<>(batch.size());
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"event_id"})) {
+            for (Feed feed : batch) {
+                setParameters(statement, feed);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (Feed feed : batch) {
+                    if (!keys.next()) {
+                        throw new SQLException("Не получены id записанных событий ленты.");
+                    }
+                    inserted.add(feed.toBuilder().eventId(keys.getLong(1)).build());
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private Feed insertOne(Feed feed) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"event_id"});
+            setParameters(statement, feed);
+            return statement;
+        }, keyHolder);
+        return feed.toBuilder().eventId(keyHolder.getKey().longValue()).build();
+    }
+
+    private void setParameters(PreparedStatement statement, Feed feed) throws SQLException {
+        statement.setLong(1, feed.getTimestamp());
+        statement.setInt(2, EventType.valueOf(feed.getEventType()).getId());
+        statement.setInt(3, Operation.valueOf(feed.getOperation()).getId());
+        statement.setLong(4, feed.getUserId());
+        statement.setLong(5, feed.getEntityId());
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.dao;
 
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
 import java.util.Collection;
 import java.util.List;
@@ -15,29 +16,39 @@ public interface FilmDao {
 
     Collection<Film> findAllFilms();
 
+    List<Film> getFilmsPage(long afterId, int limit);
+
     Film getFilmById(long id);
 
+    List<Film> getFilmsByIds(List<Long> ids);
+
     Map<Long, Film> getFilms();
 
-    void addLike(long filmId, long userId) throws DataAlreadyExistException;
+    List<Long> getFilmIds();
 
-    void removeLike(long filmId, long userId) throws DataAlreadyExistException;
+    boolean addLike(long filmId, long userId) throws DataAlreadyExistException;
 
-    List<Film> getPopular(long count);
+    boolean removeLike(long filmId, long userId) throws DataAlreadyExistException;
 
-    Collection<Film> getAllDirectorsFilmsOrderByReleaseDate(long id);
+    void insertFilms(List<Film> films);
 
-    Collection<Film> getAllDirectorsFilmsOrderByLikes(long id);
+    boolean[] saveLikes(List<LikeOperation> operations);
 
-    void deleteFilm(long id);
+    Map<Long, Integer> getLikeCounts();
 
-    void deleteAll();
+    Map<Long, List<Long>> getUsersLikes();
 
-    List<Film> getRecommendations(long id);
+    Map<Long, Integer> getReleaseYears();
 
-    List<Film> searchFilm(String query, String by);
+    Map<Long, List<Integer>> getFilmGenreIds();
 
-    List<Film> getCommonFilms(long userId, long friendId);
+    Map<Long, String> getFilmNames();
 
-    List<Film> getAllPopularFilmsOrderByLikes(long count, Integer genreId, Integer year);
+    Collection<Film> getAllDirectorsFilmsOrderByReleaseDate(long id);
+
+    Collection<Film> getAllDirectorsFilmsOrderByLikes(long id);
+
+    void deleteFilm(long id);
+
+    void deleteAll();
 }
\ No newline at end of file
@@ -4,14 +4,21 @@ import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,16 +28,27 @@ import java.util.*;
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class FilmDaoImpl implements FilmDao {
+    private static final int HYDRATION_CHUNK_SIZE = 1000;
+    private static final int SAVE_LIKES_ATTEMPTS = 5;
+    private static final String MERGE_LIKE = "merge into likes l " +
+            "using (values (cast(? as integer), cast(? as integer))) v (film_id, user_id) " +
+            "on l.film_id = v.film_id and l.user_id = v.user_id " +
+            "when not matched then insert (film_id, user_id) values (v.film_id, v.user_id)";
     JdbcTemplate jdbcTemplate;
+    NamedParameterJdbcTemplate namedJdbcTemplate;
+    TransactionTemplate transactionTemplate;
     MpaDao mpaDao;
     GenreDao genreDao;
     DirectorDao directorDao;
 
     @Autowired
-    public FilmDaoImpl(JdbcTemplate jdbcTemplate, MpaDaoImpl mpaDaoImpl,
+    public FilmDaoImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                       TransactionTemplate transactionTemplate, MpaDaoImpl mpaDaoImpl,
                        GenreDaoImpl genreDaoImpl, DirectorDao directorDao) {
 
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
         this.mpaDao = mpaDaoImpl;
         this.genreDao = genreDaoImpl;
         this.directorDao = directorDao;
@@ -61,25 +79,37 @@ public class FilmDaoImpl implements FilmDao {
 
     @Override
     public Film getFilmById(long id) {
-        SqlRowSet filmRows = jdbcTemplate.queryForRowSet("select * from films where film_id = ?", id);
+        List<Film> films = jdbcTemplate.query("select * from films where film_id = ?", this::mapRowToFilm, id);
 
-        if (filmRows.next()) {
-            Film film = new Film(
-                    filmRows.getLong("film_id"),
-                    filmRows.getString("description"),
-                    filmRows.getString("name"),
-                    Objects.requireNonNull(filmRows.getDate("release_date")).toLocalDate(),
-                    filmRows.getInt("duration"),
-                    createMpa(filmRows.getInt("mpa_id")),
-                    new ArrayList<>());
-
-            setFilmGenresAndDirectors(film);
-            return film;
+        if (!films.isEmpty()) {
+            return hydrateFilms(films).get(0);
         } else {
             throw new DataNotFoundException(String.format("Фильм с id #%d  отсутствует в базе.", id));
         }
     }
 
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Long, Film> filmsById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += HYDRATION_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, ids.size()));
+            namedJdbcTemplate.query("select * from films where film_id IN (:ids)", Map.of("ids", chunk), rs -> {
+                Film film = mapRowToFilm(rs, rs.getRow());
+                filmsById.put(film.getId(), film);
+            });
+        }
+
+        List<Film> films = new ArrayList<>();
+        for (Long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return hydrateFilms(films);
+    }
+
     @Override
     public Film updateFilm(Film film) {
         long filmId = film.getId();
@@ -121,10 +151,18 @@ public class FilmDaoImpl implements FilmDao {
         String sqlQuery = "select * from films";
         List<Film> films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm);
 
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
+        return hydrateFilms(films);
+    }
+
+    /*
+     * Keyset-выборка по первичному ключу: до limit фильмов с id больше afterId, по возрастанию id.
+     */
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        String sqlQuery = "select * from films where film_id > ? order by film_id limit ?";
+        List<Film> films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, afterId, limit);
+
+        return hydrateFilms(films);
     }
 
     private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
@@ -135,29 +173,50 @@ public class FilmDaoImpl implements FilmDao {
                 .description(resultSet.getString("description"))
                 .releaseDate(resultSet.getDate("release_date").toLocalDate())
                 .duration(resultSet.getInt("duration"))
-                .mpa(createMpa(resultSet.getInt("mpa_id")))
+                .mpa(new Mpa(resultSet.getInt("mpa_id")))
                 .genres(new ArrayList<>())
                 .build();
     }
 
-    private void setFilmGenresAndDirectors(Film film) {
-        String sqlQuery = "SELECT G.GENRE_ID, G.NAME " +
-                "FROM FILMS AS F " +
-                "LEFT OUTER JOIN FILMS_GENRES AS FG ON F.FILM_ID = FG.FILM_ID " +
-                "LEFT OUTER JOIN GENRES AS G ON FG.GENRE_ID = G.GENRE_ID " +
-                "WHERE F.FILM_ID = ? AND G.GENRE_ID IS NOT NULL " +
-                "ORDER BY G.GENRE_ID ASC";
-
-        List<Genre> genres = jdbcTemplate.query(sqlQuery, genreDao::mapRowToGenres, film.getId());
+    /*
+     * Догрузка жанров, режиссеров и рейтинга MPA для списка фильмов.
+     * Вместо трех запросов на каждый фильм выполняется по два запроса на каждую пачку id,
+     * жанры и MPA берутся из справочников в памяти.
+     */
+    private List<Film> hydrateFilms(List<Film> films) {
+        for (int from = 0; from < films.size(); from += HYDRATION_CHUNK_SIZE) {
+            List<Film> chunk = films.subList(from, Math.min(from + HYDRATION_CHUNK_SIZE, films.size()));
+            Set<Long> filmIds = new HashSet<>();
+
+            for (Film film : chunk) {
+                filmIds.add(film.getId());
+            }
 
-        film.getGenres().clear();
-        film.getGenres().addAll(genres);
+            Map<Long, List<Genre>> genres = getFilmsGenres(filmIds);
+            Map<Long, List<Director>> directors = directorDao.getFilmsDirectors(filmIds);
 
-        film.setDirectors(directorDao.getFilmDirectors(film.getId()));
+            for (Film film : chunk) {
+                film.getGenres().clear();
+                film.getGenres().addAll(genres.getOrDefault(film.getId(), Collections.emptyList()));
+                film.setDirectors(directors.getOrDefault(film.getId(), new ArrayList<>()));
+                film.setMpa(mpaDao.createMpa(film.getMpa().getId()));
+            }
+        }
+        return films;
     }
 
-    private Mpa createMpa(int id) {
-        return mpaDao.createMpa(id);
+    private Map<Long, List<Genre>> getFilmsGenres(Collection<Long> filmIds) {
+        String sqlQuery = "SELECT FG.FILM_ID, FG.GENRE_ID " +
+                "FROM FILMS_GENRES AS FG " +
+                "WHERE FG.FILM_ID IN (:ids) " +
+                "ORDER BY FG.FILM_ID, FG.GENRE_ID ASC";
+
+        Map<Long, List<Genre>> genres = new HashMap<>();
+        namedJdbcTemplate.query(sqlQuery, Map.of("ids", filmIds), rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                    .add(genreDao.createGenre(rs.getInt("genre_id")));
+        });
+        return genres;
     }
 
     @Override
@@ -172,35 +231,176 @@ public class FilmDaoImpl implements FilmDao {
     }
 
     @Override
-    public void addLike(long filmId, long userId) throws DataAlreadyExistException {
-        String sqlQuery = "delete from likes where (film_id = ? and user_id = ?)";
-        jdbcTemplate.update(sqlQuery, filmId, userId);
+    public List<Long> getFilmIds() {
+        return jdbcTemplate.queryForList("select film_id from films", Long.class);
+    }
+
+    /*
+     * Возвращает true, только если строка лайка действительно вставлена: повторный лайк ничего не меняет.
+     */
+    @Override
+    public boolean addLike(long filmId, long userId) throws DataAlreadyExistException {
+        try {
+            return jdbcTemplate.update(MERGE_LIKE, filmId, userId) > 0;
+        } catch (DuplicateKeyException e) {
+            return false; //тот же лайк одновременно вставлен другим запросом
+        }
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        String sqlQuery = "delete from likes where film_id = ? and user_id = ?";
+        return jdbcTemplate.update(sqlQuery, filmId, userId) > 0;
+    }
 
-        sqlQuery = "insert into likes (film_id, user_id) values (?, ?)";
-        jdbcTemplate.update(sqlQuery, filmId, userId);
+    /*
+     * Пакетная вставка фильмов с id, жанрами и режиссерами в одной транзакции:
+     * по одному пакетному запросу на таблицы films, films_genres и film_directors.
+     */
+    @Override
+    public void insertFilms(List<Film> films) {
+        List<Object[]> filmArgs = new ArrayList<>(films.size());
+        List<Object[]> genreArgs = new ArrayList<>();
+        List<Object[]> directorArgs = new ArrayList<>();
+        for (Film film : films) {
+            filmArgs.add(new Object[]{film.getId(), film.getDescription(), film.getName(), film.getReleaseDate(),
+                    film.getDuration(), film.getMpa().getId()});
+            if (film.getGenres() != null) {
+                Set<Integer> genreIds = new LinkedHashSet<>();
+                for (Genre genre : film.getGenres()) {
+                    genreIds.add(genre.getId());
+                }
+                for (int genreId : genreIds) {
+                    genreArgs.add(new Object[]{film.getId(), genreId});
+                }
+            }
+            if (film.getDirectors() != null) {
+                Set<Long> directorIds = new LinkedHashSet<>();
+                for (Director director : film.getDirectors()) {
+                    directorIds.add(director.getId());
+                }
+                for (long directorId : directorIds) {
+                    directorArgs.add(new Object[]{film.getId(), directorId});
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("insert into films (film_id, description, name, release_date, duration, mpa_id) " +
+                    "values (?, ?, ?, ?, ?, ?)", filmArgs);
+            if (!genreArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into films_genres (film_id, genre_id) values (?, ?)", genreArgs);
+            }
+            if (!directorArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into film_directors (film_id, director_id) values (?, ?)",
+                        directorArgs);
+            }
+        });
     }
 
+    /*
+     * Пакетное сохранение лайков в одной транзакции: добавление тем же MERGE, что и одиночный лайк,
+     * удаление - delete. Изменила ли операция строку, решают счетчики обновлений пакета, то есть
+     * состояние БД внутри транзакции, а не индексы в памяти. Операции выполняются в порядке
+     * (film_id, user_id), подряд идущие операции одного вида - одним пакетом, поэтому строки блокируются
+     * в общем для всех пакетов порядке и пакеты не ждут друг друга по кругу. Если ту же пару
+     * одновременно изменил другой запрос, транзакция откатывается по уникальному ключу или конфликту
+     * версий и повторяется.
+     */
     @Override
-    public void removeLike(long filmId, long userId) {
-        String sqlQuery = "delete from likes where id = (select id from likes where (film_id = ? and user_id = ?))";
-        jdbcTemplate.update(sqlQuery, filmId, userId);
+    public boolean[] saveLikes(List<LikeOperation> operations) {
+        List<Integer> order = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> operations.get(i).getFilmId())
+                .thenComparing(i -> operations.get(i).getUserId()));
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    boolean[] changed = new boolean[operations.size()];
+                    int from = 0;
+                    while (from < order.size()) {
+                        boolean add = isAdd(operations.get(order.get(from)));
+                        int to = from + 1;
+                        while (to < order.size() && isAdd(operations.get(order.get(to))) == add) {
+                            to++;
+                        }
+                        List<Object[]> args = new ArrayList<>(to - from);
+                        for (int i : order.subList(from, to)) {
+                            args.add(new Object[]{operations.get(i).getFilmId(), operations.get(i).getUserId()});
+                        }
+                        int[] counts = jdbcTemplate.batchUpdate(add ? MERGE_LIKE
+                                : "delete from likes where film_id = ? and user_id = ?", args);
+                        for (int j = 0; j < counts.length; j++) {
+                            changed[order.get(from + j)] = counts[j] > 0;
+                        }
+                        from = to;
+                    }
+                    return changed;
+                });
+            } catch (DuplicateKeyException | ConcurrencyFailureException e) {
+                if (attempt == SAVE_LIKES_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Пакет лайков пересекся с другим изменением лайков, попытка {} повторяется.", attempt);
+            }
+        }
+    }
+
+    private static boolean isAdd(LikeOperation like) {
+        return Operation.ADD.name().equals(like.getOp());
     }
 
     @Override
-    public List<Film> getPopular(long count) {
-        String sqlQuery = "SELECT F.* " +
+    public Map<Long, Integer> getLikeCounts() {
+        String sqlQuery = "SELECT F.FILM_ID, COUNT(L.USER_ID) AS LIKES " +
                 "FROM FILMS AS F " +
                 "LEFT JOIN LIKES AS L ON F.FILM_ID = L.FILM_ID " +
-                "GROUP BY F.FILM_ID " +
-                "ORDER BY COUNT(L.USER_ID) DESC " +
-                "LIMIT ?";
+                "GROUP BY F.FILM_ID";
 
-        List<Film> films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, count);
+        Map<Long, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            likeCounts.put(rs.getLong("film_id"), rs.getInt("likes"));
+        });
+        return likeCounts;
+    }
 
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
+    @Override
+    public Map<Long, List<Long>> getUsersLikes() {
+        Map<Long, List<Long>> likes = new HashMap<>();
+        jdbcTemplate.query("select user_id, film_id from likes", rs -> {
+            likes.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("film_id"));
+        });
+        return likes;
+    }
+
+    @Override
+    public Map<Long, Integer> getReleaseYears() {
+        Map<Long, Integer> releaseYears = new HashMap<>();
+        jdbcTemplate.query("select film_id, release_date from films", rs -> {
+            releaseYears.put(rs.getLong("film_id"), rs.getDate("release_date").toLocalDate().getYear());
+        });
+        return releaseYears;
+    }
+
+    @Override
+    public Map<Long, String> getFilmNames() {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("select film_id, name from films", rs -> {
+            names.put(rs.getLong("film_id"), rs.getString("name"));
+        });
+        return names;
+    }
+
+    @Override
+    public Map<Long, List<Integer>> getFilmGenreIds() {
+        Map<Long, List<Integer>> genreIds = new HashMap<>();
+        jdbcTemplate.query("select film_id, genre_id from films_genres", rs -> {
+            genreIds.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        return genreIds;
     }
 
     @Override
@@ -213,10 +413,7 @@ public class FilmDaoImpl implements FilmDao {
 
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, id);
 
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
+        return hydrateFilms(films);
     }
 
     @Override
@@ -231,10 +428,7 @@ public class FilmDaoImpl implements FilmDao {
 
         List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, id);
 
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
+        return hydrateFilms(films);
     }
 
     @Override
@@ -248,150 +442,4 @@ public class FilmDaoImpl implements FilmDao {
         String sql = "delete from films CASCADE;";
         jdbcTemplate.update(sql);
     }
-
-    @Override
-    public List<Film> getRecommendations(long id) {
-        String sqlQuery = "SELECT f.*\n" +
-                "FROM likes AS l\n" +
-                "INNER JOIN films AS f ON l.film_id = f.film_id\n" +
-                "WHERE l.user_id = (SELECT ls.user_id\n" +
-                "                   FROM likes AS ls\n" +
-                "                   WHERE ls.film_id IN (SELECT l2.film_id\n" +
-                "                                        FROM likes l2\n" +
-                "                                        WHERE l2.user_id = ?)\n" +
-                "                   AND ls.user_id != ?\n" +
-                "                   GROUP BY ls.user_id\n" +
-                "                   ORDER BY COUNT(ls.film_id) DESC \n" +
-                "                   LIMIT 1)\n" +
-                "AND l.film_id NOT IN (SELECT l3.film_id\n" +
-                "                      FROM likes l3\n" +
-                "                      WHERE l3.user_id = ?)";
-        List<Film> films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, id, id, id);
-
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
-    }
-
-    @Override
-    public List<Film> searchFilm(String query, String by) {
-        String lowerCaseQuery = "%" + query.toLowerCase() + "%";
-        List<Film> films = new ArrayList<>();
-
-        if (by.equals("title")) {
-            String sqlQuery = "SELECT F.FILM_ID, F.NAME, F.DESCRIPTION, F.RELEASE_DATE, F.DURATION, F.MPA_ID " +
-                    "FROM FILMS AS F " +
-                    "LEFT OUTER JOIN LIKES AS L ON F.FILM_ID = L.FILM_ID " +
-                    "WHERE LOWER(F.NAME) LIKE ? " +
-                    "GROUP BY F.FILM_ID " +
-                    "ORDER BY COUNT(L.USER_ID) DESC";
-            films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, lowerCaseQuery);
-
-            for (Film film : films) {
-                setFilmGenresAndDirectors(film);
-            }
-        }
-
-        if (by.equals("director")) {
-            String sqlQuery = "SELECT F.FILM_ID, F.NAME, F.DESCRIPTION, F.RELEASE_DATE, F.DURATION, F.MPA_ID " +
-                    "FROM FILMS AS F " +
-                    "LEFT OUTER JOIN LIKES AS L ON F.FILM_ID = L.FILM_ID " +
-                    "LEFT OUTER JOIN FILM_DIRECTORS AS FD ON F.FILM_ID = FD.FILM_ID " +
-                    "LEFT OUTER JOIN DIRECTORS AS D ON FD.DIRECTOR_ID = D.DIRECTOR_ID " +
-                    "WHERE LOWER(D.NAME) LIKE ? " +
-                    "GROUP BY F.FILM_ID " +
-                    "ORDER BY COUNT(L.USER_ID) DESC";
-            films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, lowerCaseQuery);
-
-            for (Film film : films) {
-                setFilmGenresAndDirectors(film);
-            }
-        }
-
-        if (by.equals("title,director") || by.equals("director,title")) {
-            String sqlQuery = "SELECT F.FILM_ID, F.NAME, F.DESCRIPTION, F.RELEASE_DATE, F.DURATION, F.MPA_ID " +
-                    "FROM FILMS AS F " +
-                    "LEFT OUTER JOIN LIKES AS L ON F.FILM_ID = L.FILM_ID " +
-                    "LEFT OUTER JOIN FILM_DIRECTORS AS FD ON F.FILM_ID = FD.FILM_ID " +
-                    "LEFT OUTER JOIN DIRECTORS AS D ON FD.DIRECTOR_ID = D.DIRECTOR_ID " +
-                    "WHERE LOWER(F.NAME) LIKE ? " +
-                    "OR LOWER(D.NAME) LIKE ? " +
-                    "GROUP BY F.FILM_ID " +
-                    "ORDER BY COUNT(L.USER_ID) DESC";
-            films = jdbcTemplate.query(sqlQuery, this::mapRowToFilm, lowerCaseQuery, lowerCaseQuery);
-
-            for (Film film : films) {
-                setFilmGenresAndDirectors(film);
-            }
-        }
-        return films;
-    }
-
-    @Override
-    public List<Film> getCommonFilms(long userId, long friendId) {
-        String sql = "SELECT F.* " +
-                "FROM FILMS AS F " +
-                "RIGHT JOIN LIKES AS L ON L.FILM_ID = F.FILM_ID " +
-                "WHERE L.FILM_ID IN (SELECT film_id from likes where user_id = ?) " +
-                "   AND L.FILM_ID IN (SELECT film_id from likes where user_id = ?) " +
-                "GROUP BY F.FILM_ID " +
-                "ORDER BY COUNT(L.USER_ID )";
-
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, userId, friendId);
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
-    }
-
-    @Override
-    public List<Film> getAllPopularFilmsOrderByLikes(long count, Integer genreId, Integer year) {
-        List<Film> films = new ArrayList<>();
-
-        if (genreId == null && year != null) {
-            String sql = "SELECT f.* " +
-                    "FROM films AS f " +
-                    "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                    "LEFT JOIN films_genres AS g ON f.film_id = g.film_id " +
-                    "WHERE EXTRACT(YEAR FROM f.release_date) = ? " +
-                    "GROUP BY f.film_id " +
-                    "ORDER BY COUNT(l.user_id) DESC " +
-                    "LIMIT ?";
-
-            films = jdbcTemplate.query(sql, this::mapRowToFilm, year, count);
-        }
-
-        if (year == null && genreId != null) {
-            String sql = "SELECT f.* " +
-                    "FROM films AS f " +
-                    "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                    "LEFT JOIN films_genres AS g ON f.film_id = g.film_id " +
-                    "WHERE g.genre_id = ? " +
-                    "GROUP BY f.film_id " +
-                    "ORDER BY COUNT(l.user_id) DESC " +
-                    "LIMIT ?";
-
-            films = jdbcTemplate.query(sql, this::mapRowToFilm, genreId, count);
-        }
-
-        if (year != null && genreId != null) {
-            String sql = "SELECT f.* " +
-                    "FROM films AS f " +
-                    "LEFT JOIN likes AS l ON f.film_id = l.film_id " +
-                    "LEFT JOIN films_genres AS g ON f.film_id = g.film_id " +
-                    "WHERE EXTRACT(YEAR FROM f.release_date) = ? " +
-                    "AND g.genre_id = ? " +
-                    "GROUP BY f.film_id " +
-                    "ORDER BY COUNT(l.user_id) DESC " +
-                    "LIMIT ?";
-
-            films = jdbcTemplate.query(sql, this::mapRowToFilm, year, genreId, count);
-        }
-
-        for (Film film : films) {
-            setFilmGenresAndDirectors(film);
-        }
-        return films;
-    }
 }
\ No newline at end of file
@@ -15,4 +15,6 @@ public interface GenreDao {
     Genre mapRowToGenres(ResultSet resultSet, int rowNum) throws SQLException;
 
     Genre getGenreById(int id);
+
+    void refresh();
 }
\ No newline at end of file
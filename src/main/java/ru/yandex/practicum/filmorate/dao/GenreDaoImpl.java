@@ -2,39 +2,70 @@ package ru.yandex.practicum.filmorate.dao;
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 @Component
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class GenreDaoImpl implements GenreDao {
     JdbcTemplate jdbcTemplate;
+    /*
+     * Справочник жанров, загружаемый при старте: индекс массива совпадает с genre_id.
+     * Таблица практически не меняется, поэтому массив пересобирается только в refresh() - при старте
+     * и по запросу POST /genres/refresh после ручного изменения таблицы. Genre неизменяем, поэтому наружу
+     * отдаются сами записи справочника без выделения памяти на каждый поиск.
+     */
+    @NonFinal
+    volatile Genre[] genreById = new Genre[0];
+    @NonFinal
+    volatile List<Genre> allGenres = Collections.emptyList();
 
     @Autowired
     public GenreDaoImpl(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @PostConstruct
+    @Override
+    public void refresh() {
+        List<Genre> genres = jdbcTemplate.query("select * from genres order by genre_id", this::mapRowToGenres);
+        int maxId = genres.isEmpty() ? 0 : genres.get(genres.size() - 1).getId();
+        Genre[] lookup = new Genre[maxId + 1];
+
+        for (Genre genre : genres) {
+            lookup[genre.getId()] = genre;
+        }
+        allGenres = Collections.unmodifiableList(genres);
+        genreById = lookup;
+        log.info("Загружен справочник жанров: {} записей", genres.size());
+    }
+
     @Override
     public Genre createGenre(int id) {
-        String sqlQuery = "select * from genres where genre_id = ?";
-        return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToGenres, id);
+        Genre[] lookup = genreById;
+        Genre genre = id >= 0 && id < lookup.length ? lookup[id] : null;
+        if (genre == null) {
+            throw new DataNotFoundException(String.format("Жанр с id #%d отсутствует в базе", id));
+        }
+        return genre;
     }
 
     @Override
     public Collection<Genre> getAllGenres() {
-        String sqlQuery = "select * from genres";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToGenres);
+        return allGenres;
     }
 
     @Override
@@ -47,14 +78,8 @@ public class GenreDaoImpl implements GenreDao {
 
     @Override
     public Genre getGenreById(int id) {
-        SqlRowSet genreRows = jdbcTemplate.queryForRowSet("select * from genres where genre_id = ?", id);
-
-        if (genreRows.next()) {
-            Genre genre = createGenre(id);
-            log.info("Найден GENRE: {} {}", genre.getId(), genre.getName());
-            return genre;
-        } else {
-            throw new DataNotFoundException(String.format("Жанр с id #%d отсутствует в базе", id));
-        }
+        Genre genre = createGenre(id);
+        log.info("Найден GENRE: {} {}", genre.getId(), genre.getName());
+        return genre;
     }
 }
\ No newline at end of file
@@ -11,4 +11,6 @@ public interface MpaDao {
     Collection<Mpa> getAllMpa();
 
     Mpa getMpaById(int id);
+
+    void refresh();
 }
\ No newline at end of file
@@ -2,33 +2,65 @@ package ru.yandex.practicum.filmorate.dao;
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import javax.annotation.PostConstruct;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 @Component
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class MpaDaoImpl implements MpaDao {
     JdbcTemplate jdbcTemplate;
+    /*
+     * Справочник MPA, загружаемый при старте: индекс массива совпадает с mpa_id.
+     * Таблица практически не меняется, поэтому массив пересобирается только в refresh() - при старте
+     * и по запросу POST /mpa/refresh после ручного изменения таблицы. Mpa неизменяем, поэтому наружу
+     * отдаются сами записи справочника без выделения памяти на каждый поиск.
+     */
+    @NonFinal
+    volatile Mpa[] mpaById = new Mpa[0];
+    @NonFinal
+    volatile List<Mpa> allMpa = Collections.emptyList();
 
     @Autowired
     public MpaDaoImpl(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @PostConstruct
+    @Override
+    public void refresh() {
+        List<Mpa> mpaList = jdbcTemplate.query("select * from mpa order by mpa_id", this::mapRowToMpa);
+        int maxId = mpaList.isEmpty() ? 0 : mpaList.get(mpaList.size() - 1).getId();
+        Mpa[] lookup = new Mpa[maxId + 1];
+
+        for (Mpa mpa : mpaList) {
+            lookup[mpa.getId()] = mpa;
+        }
+        allMpa = Collections.unmodifiableList(mpaList);
+        mpaById = lookup;
+        log.info("Загружен справочник MPA: {} записей", mpaList.size());
+    }
+
     @Override
     public Mpa createMpa(int id) {
-        String sqlQuery = "select * from mpa where mpa_id = ?";
-        return jdbcTemplate.queryForObject(sqlQuery, this::mapRowToMpa, id);
+        Mpa[] lookup = mpaById;
+        Mpa mpa = id >= 0 && id < lookup.length ? lookup[id] : null;
+        if (mpa == null) {
+            throw new DataNotFoundException(String.format("MPA с id #%d отсутствует в базе.", id));
+        }
+        return mpa;
     }
 
     private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
@@ -40,20 +72,13 @@ public class MpaDaoImpl implements MpaDao {
 
     @Override
     public Collection<Mpa> getAllMpa() {
-        String sqlQuery = "select * from mpa";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToMpa);
+        return allMpa;
     }
 
     @Override
     public Mpa getMpaById(int id) {
-        SqlRowSet mpaRows = jdbcTemplate.queryForRowSet("select * from mpa where mpa_id = ?", id);
-
-        if (mpaRows.next()) {
-            Mpa mpa = createMpa(id);
-            log.info("Найден MPA: {} {}", mpa.getId(), mpa.getName());
-            return mpa;
-        } else {
-            throw new DataNotFoundException(String.format("MPA с id #%d отсутствует в базе.", id));
-        }
+        Mpa mpa = createMpa(id);
+        log.info("Найден MPA: {} {}", mpa.getId(), mpa.getName());
+        return mpa;
     }
 }
\ No newline at end of file
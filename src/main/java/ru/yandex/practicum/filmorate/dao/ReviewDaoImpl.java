@@ -4,16 +4,17 @@ import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.index.ReviewRanking;
 import ru.yandex.practicum.filmorate.model.Review;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -26,11 +27,19 @@ import java.util.stream.Collectors;
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class ReviewDaoImpl implements ReviewDao {
+    private static final int CHUNK_SIZE = 1000;
     JdbcTemplate jdbcTemplate;
+    NamedParameterJdbcTemplate namedJdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    ReviewRanking ranking;
 
     @Autowired
-    public ReviewDaoImpl(JdbcTemplate jdbcTemplate) {
+    public ReviewDaoImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                         TransactionTemplate transactionTemplate, ReviewRanking ranking) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ranking = ranking;
     }
 
     @Override
@@ -39,21 +48,17 @@ public class ReviewDaoImpl implements ReviewDao {
                 .usingGeneratedKeyColumns("review_id");
         int createdId = simpleJdbcInsert.executeAndReturnKey(review.toMap()).intValue();
         review.setReviewId(createdId);
+        ranking.put(createdId, review.getFilmId(), review.getUseful());
         return createdId;
     }
 
     @Override
     public int updateReview(Review review) {
-        /*вычисление полезности отзыва по лайкам*/
-        int useful = 0;
-        for (int like : review.getLikedUsers().values()) {
-            useful += like; //суммируем оценки
-        }
-
-        String sqlQuery = "update reviews set content = ?, useful = ?,  isPositive = ? where review_id = ?";
+        /*полезность не перезаписывается: ее меняют только оценки (createLike, deleteLike)*/
+        String sqlQuery = "update reviews set content = ?, isPositive = ? where review_id = ?";
         /*заполняем параметры для запроса в БД. Складываем в него обновляемые данные*/
         int reviewId = review.getReviewId();
-        jdbcTemplate.update(sqlQuery, review.getContent(), useful, review.getIsPositive(), reviewId);
+        jdbcTemplate.update(sqlQuery, review.getContent(), review.getIsPositive(), reviewId);
 
         return review.getReviewId();
     }
@@ -62,6 +67,7 @@ public class ReviewDaoImpl implements ReviewDao {
     public void deleteReviewById(int id) {
         String sqlQuery = "delete from reviews where review_id = ?";
         jdbcTemplate.update(sqlQuery, id);
+        ranking.remove(id);
     }
 
     @Override
@@ -91,67 +97,115 @@ public class ReviewDaoImpl implements ReviewDao {
 
     @Override
     public List<Review> getReviewsByFilm(int filmId, int amount) {
-        List<Review> reviewList;
-        String sqlQuery;
-
-        if (filmId == 0) {
-            //запрос без ограничения по id
-            sqlQuery = "select * from reviews ORDER BY useful DESC LIMIT ? ;";
-            reviewList = jdbcTemplate.query(sqlQuery, this::mapRowToReview, amount);
-        } else {
-            //запрос по конкретному фильму
-            sqlQuery = "select * from reviews where film_id = ? ORDER BY useful DESC LIMIT ?;";
-            reviewList = jdbcTemplate.query(sqlQuery, this::mapRowToReview, filmId, amount);
-        }
+        /*id самых полезных отзывов берем из рейтинга в памяти, сами отзывы - из БД одним запросом*/
+        ranking.loadIfAbsent(row -> jdbcTemplate.query("select review_id, film_id, useful from reviews",
+                rs -> {
+                    row.accept(new long[]{rs.getInt("review_id"), rs.getLong("film_id"), rs.getInt("useful")});
+                }));
+        List<Review> reviewList = getReviewsByIds(ranking.getTop(filmId, amount));
         setLikesForReviewList(reviewList); //устанавливаем для всех отзывов их оценки
         return reviewList;
     }
 
     @Override
     public void createLike(int reviewId, int userId, int value) {
-        Map<Integer, Integer> likedUsers = this.getLikedUsersByReview(reviewId);//взяли из БД все лайки и дизлайки для Отзыва
-        likedUsers.put(userId, value); //Добавили новый лайк/дизлайк (или заменили лайк/дизлайк, если оценка уже стоит
+        transactionTemplate.executeWithoutResult(status -> {
+            Review review = lockReview(reviewId);
+            int oldValue = getLike(reviewId, userId); //прежняя оценка пользователя, 0 - если ее не было
 
-        /*добавляем новые данные в таблицу review_likes*/
-        final String sqlInsertQuery = "merge into review_likes(review_id,user_id,isUseful) KEY (review_id,user_id) values(?,?,?)";
-        likedUsers.forEach((id, like) -> jdbcTemplate.update(sqlInsertQuery, reviewId, id, like));
+            /*сохраняем только оценку этого пользователя (или заменяем ее, если оценка уже стоит)*/
+            final String sqlInsertQuery = "merge into review_likes(review_id,user_id,isUseful) KEY (review_id,user_id) values(?,?,?)";
+            jdbcTemplate.update(sqlInsertQuery, reviewId, userId, value);
 
-        /*после добавления лайка пересчитываем популярность отзыва*/
-        updateReview(getReviewById(reviewId)); //при обновлении пересчитывается популярность
+            changeUseful(review, value - oldValue); //популярность меняется на разницу оценок
+        });
     }
 
     @Override
     public void deleteLike(int reviewId, int userId) {
-        Map<Integer, Integer> likedUsers = this.getLikedUsersByReview(reviewId);//взяли из БД все лайки и дизлайки для Отзыва
-        likedUsers.remove(userId); //Удалили оценку отзыва
+        transactionTemplate.executeWithoutResult(status -> {
+            Review review = lockReview(reviewId);
+            int oldValue = getLike(reviewId, userId);
 
-        /*удалили данные из таблицы review_likes*/
-        final String sqlInsertQuery = "delete from review_likes where review_id = ? AND user_id = ?";
-        jdbcTemplate.update(sqlInsertQuery, reviewId, userId);
+            /*удалили данные из таблицы review_likes*/
+            final String sqlDeleteQuery = "delete from review_likes where review_id = ? AND user_id = ?";
+            jdbcTemplate.update(sqlDeleteQuery, reviewId, userId);
 
-        /*после удаления лайка пересчитываем популярность отзыва*/
-        updateReview(getReviewById(reviewId)); //при обновлении пересчитывается популярность
+            changeUseful(review, -oldValue); //убираем удаленную оценку из популярности
+        });
+    }
+
+    /*
+     * Получение отзыва с блокировкой его строки до конца транзакции,
+     * чтобы оценки одного отзыва применялись по очереди.
+     *
+     * @param reviewId - id Отзыва
+     * @return отзыв без оценок
+     */
+    private Review lockReview(int reviewId) {
+        List<Review> reviews = jdbcTemplate.query("select * from reviews where review_id = ? for update",
+                this::mapRowToReview, reviewId);
+        if (reviews.isEmpty()) {
+            throw new DataNotFoundException(String.format("Ошибка получения данных: отзыв c id #%d не найден", reviewId));
+        }
+        return reviews.get(0);
     }
 
+    /*
+     * Получение оценки пользователя для отзыва.
+     *
+     * @param reviewId - id Отзыва
+     * @param userId   - id пользователя
+     * @return оценка пользователя, 0 - если ее нет
+     */
+    private int getLike(int reviewId, int userId) {
+        List<Integer> likes = jdbcTemplate.queryForList(
+                "select isUseful from review_likes where review_id = ? AND user_id = ?", Integer.class, reviewId, userId);
+        return likes.isEmpty() ? 0 : likes.get(0);
+    }
 
     /*
-     * Получение из БД всех пользователей, лайкнувших отзыв.
+     * Изменение полезности отзыва на delta одним запросом, без пересчета всех оценок.
+     * Рейтинг в памяти обновляется, пока строка отзыва заблокирована.
      *
-     * @param reviewId - id отзыва
-     * @return Set из id пользователей
+     * @param review - заблокированный отзыв
+     * @param delta  - изменение полезности
      */
-    private Map<Integer, Integer> getLikedUsersByReview(int reviewId) {
-        Map<Integer, Integer> users = new HashMap<>();
-        /*получаем пользователей, лайкнувших отзыв из БД*/
-        String sqlQuery = "select * from review_likes where review_id = ? ORDER BY user_id"; //запрос для получения пользователей по отзыву
-        SqlRowSet userRows = jdbcTemplate.queryForRowSet(sqlQuery, reviewId); //отправка запроса и сохранение результатов в SqlRowSet
-        /*превращаем полученные записи в сет объектов типа Integer*/
-        while (userRows.next()) { //проходим по всем строкам, извлекаем id и складываем в сет
-            users.put(userRows.getInt("user_id"), userRows.getInt("isUseful"));
+    private void changeUseful(Review review, int delta) {
+        if (delta != 0) {
+            jdbcTemplate.update("update reviews set useful = useful + ? where review_id = ?", delta, review.getReviewId());
+            ranking.put(review.getReviewId(), review.getFilmId(), review.getUseful() + delta);
         }
-        return users;
     }
 
+    /*
+     * Получение отзывов по списку id с сохранением порядка списка.
+     *
+     * @param reviewIds - id отзывов
+     * @return список отзывов без оценок
+     */
+    private List<Review> getReviewsByIds(List<Integer> reviewIds) {
+        Map<Integer, Review> reviewMap = new HashMap<>();
+        for (int from = 0; from < reviewIds.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = reviewIds.subList(from, Math.min(from + CHUNK_SIZE, reviewIds.size()));
+            namedJdbcTemplate.query("select * from reviews where review_id IN (:ids)", Map.of("ids", chunk),
+                    rs -> {
+                        Review review = mapRowToReview(rs, rs.getRow());
+                        reviewMap.put(review.getReviewId(), review);
+                    });
+        }
+
+        List<Review> reviews = new ArrayList<>(reviewIds.size());
+        for (int reviewId : reviewIds) {
+            Review review = reviewMap.get(reviewId);
+            if (review != null) {
+                reviews.add(review);
+            }
+        }
+        return reviews;
+    }
+
+
     /*
      * Получение из БД всех оценок, соответствующих отзыву.
      *
@@ -176,58 +230,20 @@ public class ReviewDaoImpl implements ReviewDao {
         return likes;
     }
 
-    /*
-     * Сохранение в БД в таблицу review_likes оценок переданного отзыва.
-     *
-     * @param review - отзыв, оценки которого надо сохранить в БД
-     */
-
-    private void saveReviewLikes(Review review) {
-        if (review == null || review.getLikedUsers().isEmpty()) {
-            return;
-        }
-        Map<Integer, Integer> likes = review.getLikedUsers();
-        ArrayList<Integer> users = new ArrayList<>(likes.keySet());
-        ArrayList<Integer> isUseful = new ArrayList<>(likes.values());
-        int reviewId = review.getReviewId();
-
-        jdbcTemplate.batchUpdate("insert into review_likes(review_id,user_id,isUseful) values(?,?,?)",
-                new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-                        preparedStatement.setInt(1, reviewId);
-                        preparedStatement.setInt(2, users.get(i));
-                        preparedStatement.setInt(3, isUseful.get(i));
-                    }
-
-                    @Override
-                    public int getBatchSize() {
-                        return users.size();
-                    }
-                });
-    }
-
     /*
      * Добавление лайков к каждому отзыву из списка отзывов (через таблицу review_likes).
      *
      * @param reviewList - список отзывов
      */
     private void setLikesForReviewList(List<Review> reviewList) {
-        /*из списка отзывов получаем список их id. И создаем строку для условия запроса*/
-        List<String> reviewIdList = reviewList.stream()
-                .map(f -> String.valueOf(f.getReviewId()))
+        /*из списка отзывов получаем список их id - он передается в запрос параметром*/
+        List<Integer> reviewIdList = reviewList.stream()
+                .map(Review::getReviewId)
                 .collect(Collectors.toList());
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("(");
-        if (reviewIdList.size() != 0) {
-            reviewIdList.forEach(f -> stringBuilder.append(f).append(","));
-            stringBuilder.deleteCharAt(stringBuilder.length() - 1);
-        }
-        stringBuilder.append(")");
 
         String sql = "SELECT review_id, user_id, isUseful " +
                 "FROM review_likes " +
-                "WHERE user_id IN " + stringBuilder + ";";
+                "WHERE review_id IN (:ids)";
 
         /*преобразуем ArrayList в мапу <id, review>*/
         Map<Integer, Review> reviewMap = reviewList.stream().collect(Collectors.toMap(Review::getReviewId, review -> review));
@@ -237,7 +253,10 @@ public class ReviewDaoImpl implements ReviewDao {
             int like = rs.getInt("isUseful");
             reviewMap.get(reviewId).addUserLike(userId, like); //добавление лайка к отзыву
         };
-        jdbcTemplate.query(sql, rowCallbackHandler); //выполняем запрос и обработку результатов
+        for (int from = 0; from < reviewIdList.size(); from += CHUNK_SIZE) { //выполняем запрос и обработку результатов
+            List<Integer> chunk = reviewIdList.subList(from, Math.min(from + CHUNK_SIZE, reviewIdList.size()));
+            namedJdbcTemplate.query(sql, Map.of("ids", chunk), rowCallbackHandler);
+        }
     }
 
     /*
@@ -15,17 +15,23 @@ public interface UserDao {
 
     Collection<User> findAllUsers();
 
+    List<User> getUsersPage(long afterId, int limit);
+
     User getUserById(long id);
 
+    List<User> getUsersByIds(List<Long> ids);
+
     Map<Long, User> getUsers();
 
+    List<Long> getUserIds();
+
     void addFriend(long userId, long friendId) throws DataAlreadyExistException;
 
     List<User> getFriends(long id);
 
-    void removeFriend(long userId, long friendId) throws DataAlreadyExistException;
+    Map<Long, List<Long>> getFriendIds();
 
-    List<User> getCommonFriends(long userId, long otherUserId);
+    void removeFriend(long userId, long friendId) throws DataAlreadyExistException;
 
     void deleteUser(long id);
 
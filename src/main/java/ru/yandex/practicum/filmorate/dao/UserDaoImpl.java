@@ -5,8 +5,10 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
@@ -19,11 +21,17 @@ import java.util.*;
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class UserDaoImpl implements UserDao {
+    private static final int CHUNK_SIZE = 1000;
     JdbcTemplate jdbcTemplate;
+    NamedParameterJdbcTemplate namedJdbcTemplate;
+    TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UserDaoImpl(JdbcTemplate jdbcTemplate) {
+    public UserDaoImpl(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                       TransactionTemplate transactionTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
@@ -72,12 +80,43 @@ public class UserDaoImpl implements UserDao {
         }
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        Map<Long, User> usersById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            namedJdbcTemplate.query("select * from users where user_id IN (:ids)", Map.of("ids", chunk), rs -> {
+                User user = mapRowToUser(rs, rs.getRow());
+                usersById.put(user.getId(), user);
+            });
+        }
+
+        List<User> users = new ArrayList<>();
+        for (Long id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
     @Override
     public Collection<User> findAllUsers() {
         String sqlQuery = "select * from users";
         return jdbcTemplate.query(sqlQuery, this::mapRowToUser);
     }
 
+    /*
+     * Keyset-выборка по первичному ключу: до limit пользователей с id больше afterId, по возрастанию id.
+     */
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        String sqlQuery = "select * from users where user_id > ? order by user_id limit ?";
+        return jdbcTemplate.query(sqlQuery, this::mapRowToUser, afterId, limit);
+    }
+
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
         return User.builder()
                 .id(resultSet.getLong("user_id"))
@@ -99,6 +138,11 @@ public class UserDaoImpl implements UserDao {
         return users;
     }
 
+    @Override
+    public List<Long> getUserIds() {
+        return jdbcTemplate.queryForList("select user_id from users", Long.class);
+    }
+
     @Override
     public List<User> getFriends(long id) {
         String sqlQuery = "SELECT U.USER_ID, U.NAME, U.EMAIL, U.LOGIN, U.BIRTHDAY FROM FRIENDS AS F " +
@@ -107,24 +151,32 @@ public class UserDaoImpl implements UserDao {
     }
 
     @Override
-    public List<User> getCommonFriends(long userId, long otherUserId) throws DataNotFoundException {
-
-        final List<User> userFriends = getFriends(userId);
-        final List<User> otherUserFriends = getFriends(otherUserId);
-        final List<User> commonFriends = new ArrayList<>();
-
-        for (User data : userFriends) {
-            if (otherUserFriends.contains(data)) {
-                commonFriends.add(data);
-            }
-        }
-        return commonFriends;
+    public Map<Long, List<Long>> getFriendIds() {
+        Map<Long, List<Long>> friendIds = new HashMap<>();
+        jdbcTemplate.query("select user_id, friend_id from friends", rs -> {
+            friendIds.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("friend_id"));
+        });
+        return friendIds;
     }
 
+    /*
+     * Оценки пользователя удаляются из review_likes каскадно, поэтому в той же транзакции их сумма
+     * вычитается из полезности оцененных отзывов. Строки отзывов блокируются в порядке id,
+     * как при постановке оценки, чтобы оценки, поставленные до удаления, были учтены.
+     */
     @Override
     public void deleteUser(long id) {
-        String sqlQuery = "delete from users where user_id = ?";
-        jdbcTemplate.update(sqlQuery, id);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("select review_id from reviews where review_id in " +
+                    "(select review_id from review_likes where user_id = ?) order by review_id for update",
+                    Integer.class, id);
+            jdbcTemplate.update("update reviews r set useful = useful - " +
+                    "(select isUseful from review_likes rl where rl.review_id = r.review_id and rl.user_id = ?) " +
+                    "where review_id in (select review_id from review_likes where user_id = ?)", id, id);
+
+            String sqlQuery = "delete from users where user_id = ?";
+            jdbcTemplate.update(sqlQuery, id);
+        });
     }
 
     @Override
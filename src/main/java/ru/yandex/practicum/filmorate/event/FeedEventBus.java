@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.event;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Внутрипроцессная шина событий ленты. FeedWriter публикует события после записи в БД,
+ * а шина передает их слушателям всех событий и раздает подписчикам пользователя, к которому относится событие.
+ * У каждого подписчика свой ограниченный буфер (filmorate.feed.stream.buffer-size), который разбирается
+ * пулом доставки; публикация никогда не ждет клиента. Подписчик, чей буфер переполнен
+ * или чья отправка завершилась ошибкой, отключается.
+ */
+@Component
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FeedEventBus {
+    Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    List<Consumer<Feed>> listeners = new CopyOnWriteArrayList<>();
+    ExecutorService delivery;
+    int bufferSize;
+
+    @Autowired
+    public FeedEventBus(@Value("${filmorate.feed.stream.buffer-size:256}") int bufferSize,
+                        @Value("${filmorate.feed.stream.threads:4}") int threads) {
+        this.bufferSize = bufferSize;
+        this.delivery = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "feed-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    private void stop() {
+        delivery.shutdownNow();
+        for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+            for (Subscription subscription : userSubscriptions) {
+                subscription.close();
+            }
+        }
+    }
+
+    /*
+     * Слушатели всех событий вызываются синхронно в потоке, публикующем пакет, в порядке event_id.
+     */
+    public void addListener(Consumer<Feed> listener) {
+        listeners.add(listener);
+    }
+
+    public Subscription subscribe(long userId, Sink sink, Runnable onClose) {
+        Subscription subscription = new Subscription(userId, sink, onClose);
+        subscriptions.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(subscription);
+        return subscription;
+    }
+
+    public void publish(List<Feed> feeds) {
+        for (Feed feed : feeds) {
+            for (Consumer<Feed> listener : listeners) {
+                listener.accept(feed);
+            }
+
+            Set<Subscription> userSubscriptions = subscriptions.get(feed.getUserId());
+            if (userSubscriptions == null) {
+                continue;
+            }
+            for (Subscription subscription : userSubscriptions) {
+                if (subscription.buffer.offer(feed)) {
+                    subscription.schedule();
+                } else {
+                    log.warn(String.format("Подписчик ленты пользователя с id # %d не успевает получать события " +
+                            "и отключен.", feed.getUserId()));
+                    subscription.close();
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+
+        void send(Feed feed) throws Exception;
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    public class Subscription {
+        long userId;
+        Sink sink;
+        Runnable onClose;
+        BlockingQueue<Feed> buffer = new ArrayBlockingQueue<>(bufferSize);
+        AtomicBoolean scheduled = new AtomicBoolean();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        Subscription(long userId, Sink sink, Runnable onClose) {
+            this.userId = userId;
+            this.sink = sink;
+            this.onClose = onClose;
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.computeIfPresent(userId, (id, userSubscriptions) -> {
+                userSubscriptions.remove(this);
+                return userSubscriptions.isEmpty() ? null : userSubscriptions;
+            });
+            buffer.clear();
+            onClose.run();
+        }
+
+        private void schedule() {
+            if (closed.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                delivery.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                close();
+            }
+        }
+
+        /*
+         * Одновременно буфер подписчика разбирает не больше одной задачи, поэтому события приходят по порядку.
+         * Событие, добавленное после выхода из цикла, подхватывается повторным планированием.
+         */
+        private void drain() {
+            try {
+                Feed feed;
+                while (!closed.get() && (feed = buffer.poll()) != null) {
+                    sink.send(feed);
+                }
+            } catch (Exception e) {
+                log.debug(String.format("Отправка ленты пользователя с id # %d прервана: %s.", userId, e.getMessage()));
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class SearchLimitExceededException extends RuntimeException {
+    public SearchLimitExceededException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
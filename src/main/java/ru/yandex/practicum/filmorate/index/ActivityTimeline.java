@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Лента активности друзей, собираемая при записи (fan-out-on-write).
+ * Каждое событие попадает в буфер автора и во входящие буферы его подписчиков - пользователей,
+ * добавивших автора в друзья. События авторов, у которых больше filmorate.timeline.fan-out-limit подписчиков,
+ * не рассылаются, а подмешиваются из буфера автора при чтении (fan-out-on-read).
+ * Буферы хранят последние filmorate.timeline.capacity событий и пересобираются из таблицы feeds при старте.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ActivityTimeline {
+    FriendGraph friendGraph;
+    FeedEventBus eventBus;
+    int capacity;
+    int fanOutLimit;
+    Map<Integer, EventRing> inboxes = new ConcurrentHashMap<>();
+    Map<Integer, EventRing> outboxes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ActivityTimeline(FriendGraph friendGraph, FeedEventBus eventBus,
+                            @Value("${filmorate.timeline.capacity:200}") int capacity,
+                            @Value("${filmorate.timeline.fan-out-limit:1000}") int fanOutLimit) {
+        this.friendGraph = friendGraph;
+        this.eventBus = eventBus;
+        this.capacity = capacity;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    @PostConstruct
+    private void subscribe() {
+        eventBus.addListener(feed -> addEvent(feed.getEventId(), feed.getUserId()));
+    }
+
+    public void addEvent(long eventId, long authorId) {
+        int author = SortedInts.toId(authorId);
+        outbox(author).add(eventId, author);
+
+        int[] followers = friendGraph.getFollowers(author);
+        if (followers.length <= fanOutLimit) {
+            for (int follower : followers) {
+                inbox(follower).add(eventId, author);
+            }
+        }
+    }
+
+    /*
+     * Новый друг: его недавние события вливаются во входящий буфер пользователя.
+     */
+    public void addFriend(long userId, long friendId) {
+        int friend = SortedInts.toId(friendId);
+        EventRing friendEvents = outboxes.get(friend);
+        if (friendEvents != null && !isFannedOutOnRead(friend)) {
+            inbox(SortedInts.toId(userId)).merge(friendEvents);
+        }
+    }
+
+    /*
+     * Бывший друг: его события убираются из входящего буфера пользователя и не занимают в нем место.
+     */
+    public void removeFriend(long userId, long friendId) {
+        if (!SortedInts.isId(userId) || !SortedInts.isId(friendId)) {
+            return;
+        }
+        EventRing inbox = inboxes.get((int) userId);
+        if (inbox != null) {
+            inbox.removeAuthor((int) friendId);
+        }
+    }
+
+    public void removeUser(long userId) {
+        if (SortedInts.isId(userId)) {
+            inboxes.remove((int) userId);
+            outboxes.remove((int) userId);
+        }
+    }
+
+    public void clear() {
+        inboxes.clear();
+        outboxes.clear();
+    }
+
+    /*
+     * До limit id событий друзей пользователя с id меньше beforeId, от новых к старым.
+     * Из входящего буфера отбрасываются события тех, кто уже не в друзьях;
+     * события авторов с большим числом подписчиков читаются из их собственных буферов.
+     */
+    public List<Long> getTimeline(long userId, long beforeId, int limit) {
+        int[] friends = friendGraph.getFriends(userId);
+        List<long[]> sourceIds = new ArrayList<>();
+        List<Integer> sourceSizes = new ArrayList<>();
+
+        EventRing inbox = SortedInts.isId(userId) ? inboxes.get((int) userId) : null;
+        if (inbox != null) {
+            collect(inbox, beforeId, friends, limit, sourceIds, sourceSizes);
+        }
+        for (int friend : friends) {
+            EventRing friendEvents = outboxes.get(friend);
+            if (friendEvents != null && isFannedOutOnRead(friend)) {
+                collect(friendEvents, beforeId, friends, limit, sourceIds, sourceSizes);
+            }
+        }
+
+        int[] positions = new int[sourceIds.size()];
+        List<Long> timeline = new ArrayList<>();
+        while (timeline.size() < limit) {
+            int newest = -1;
+            for (int source = 0; source < positions.length; source++) {
+                if (positions[source] < sourceSizes.get(source) && (newest < 0
+                        || sourceIds.get(source)[positions[source]] > sourceIds.get(newest)[positions[newest]])) {
+                    newest = source;
+                }
+            }
+            if (newest < 0) {
+                break;
+            }
+
+            long eventId = sourceIds.get(newest)[positions[newest]++];
+            if (timeline.isEmpty() || timeline.get(timeline.size() - 1) != eventId) {
+                timeline.add(eventId);
+            }
+        }
+        return timeline;
+    }
+
+    private void collect(EventRing ring, long beforeId, int[] friends, int limit,
+                         List<long[]> sourceIds, List<Integer> sourceSizes) {
+        int max = Math.min(limit, ring.size());
+        if (max == 0) {
+            return;
+        }
+        long[] ids = new long[max];
+        int count = ring.collect(beforeId, author -> SortedInts.contains(friends, author), max, ids, new int[max]);
+        if (count > 0) {
+            sourceIds.add(ids);
+            sourceSizes.add(count);
+        }
+    }
+
+    private boolean isFannedOutOnRead(int author) {
+        return friendGraph.getFollowers(author).length > fanOutLimit;
+    }
+
+    private EventRing inbox(int userId) {
+        return inboxes.computeIfAbsent(userId, id -> new EventRing(capacity));
+    }
+
+    private EventRing outbox(int userId) {
+        return outboxes.computeIfAbsent(userId, id -> new EventRing(capacity));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ограниченный кэш сущностей по id с вытеснением давно не читавшихся записей (LRU).
+ * Размер ограничен числом записей и суммарным весом - оценкой занимаемой памяти, которую дает weigher.
+ * Каждая инвалидация увеличивает поколение кэша; значение, прочитанное из БД, кладется через putIfUnchanged
+ * с поколением, взятым до чтения, и отбрасывается, если за это время данные менялись.
+ * Сущности изменяемы, поэтому кэш хранит копию, сделанную copier при записи, и отдает копии при чтении:
+ * изменение возвращенного объекта вызывающим кодом не меняет закэшированное значение.
+ * Все операции выполняются под одной блокировкой кэша. Это сознательный выбор: LRU на LinkedHashMap
+ * с порядком доступа меняет список и при чтении, а разбиение на сегменты дало бы LRU и лимит веса
+ * только внутри сегмента. Под блокировкой выполняются лишь операции с картой, копирование и оценка
+ * веса делаются вне ее.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class EntityCache<V> {
+    LinkedHashMap<Long, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    int maxSize;
+    long maxWeight;
+    ToLongFunction<V> weigher;
+    UnaryOperator<V> copier;
+    @NonFinal
+    long weight;
+    @NonFinal
+    long generation;
+    @NonFinal
+    long hits;
+    @NonFinal
+    long misses;
+    @NonFinal
+    long evictions;
+    @NonFinal
+    long invalidations;
+
+    public EntityCache(int maxSize, long maxWeight, ToLongFunction<V> weigher, UnaryOperator<V> copier) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.copier = copier;
+    }
+
+    public V get(long id) {
+        V value;
+        synchronized (this) {
+            Entry<V> entry = entries.get(id);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            value = entry.value;
+        }
+        return copier.apply(value);
+    }
+
+    /*
+     * Найденные в кэше значения по списку id; отсутствующие id в результат не попадают.
+     */
+    public Map<Long, V> getAll(Collection<Long> ids) {
+        Map<Long, V> found = new HashMap<>();
+        synchronized (this) {
+            for (Long id : ids) {
+                Entry<V> entry = entries.get(id);
+                if (entry == null) {
+                    misses++;
+                } else {
+                    hits++;
+                    found.put(id, entry.value);
+                }
+            }
+        }
+        found.replaceAll((id, value) -> copier.apply(value));
+        return found;
+    }
+
+    /*
+     * Текущее поколение кэша: берется до чтения из БД и передается в putIfUnchanged.
+     */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    public void putIfUnchanged(long id, V value, long stamp) {
+        V copy = copier.apply(value);
+        long valueWeight = weigher.applyAsLong(copy);
+        synchronized (this) {
+            if (stamp == generation) {
+                store(id, copy, valueWeight);
+            }
+        }
+    }
+
+    /*
+     * Запись значения, только что сохраненного в БД (write-through).
+     */
+    public void put(long id, V value) {
+        V copy = copier.apply(value);
+        long valueWeight = weigher.applyAsLong(copy);
+        synchronized (this) {
+            generation++;
+            store(id, copy, valueWeight);
+        }
+    }
+
+    public synchronized void invalidate(long id) {
+        generation++;
+        if (discard(id)) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        generation++;
+        Iterator<Map.Entry<Long, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next().getValue();
+            if (predicate.test(entry.value)) {
+                iterator.remove();
+                weight -= entry.weight;
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized CacheStats getStats() {
+        long requests = hits + misses;
+        return CacheStats.builder()
+                .size(entries.size())
+                .maxSize(maxSize)
+                .weight(weight)
+                .maxWeight(maxWeight)
+                .hits(hits)
+                .misses(misses)
+                .hitRate(requests == 0 ? 0 : (double) hits / requests)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .build();
+    }
+
+    private void store(long id, V value, long valueWeight) {
+        discard(id);
+        if (maxSize <= 0 || valueWeight > maxWeight) {
+            return;
+        }
+        entries.put(id, new Entry<>(value, valueWeight));
+        weight += valueWeight;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxSize || weight > maxWeight) {
+            Entry<V> entry = eldest.next();
+            eldest.remove();
+            weight -= entry.weight;
+            evictions++;
+        }
+    }
+
+    private boolean discard(long id) {
+        Entry<V> entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        weight -= entry.weight;
+        return true;
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class Entry<V> {
+        V value;
+        long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Кольцевой буфер последних событий ленты: id события и id его автора, по возрастанию id.
+ * При переполнении вытесняются самые старые события. Массивы растут по мере заполнения до capacity,
+ * чтобы буферы неактивных пользователей не занимали память.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EventRing {
+    private static final int INITIAL_LENGTH = 8;
+    final int capacity;
+    long[] ids = new long[0];
+    int[] authors = new int[0];
+    int start;
+    int size;
+
+    public EventRing(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(long eventId, int authorId) {
+        if (size > 0 && eventId <= ids[index(size - 1)]) {
+            merge(new long[]{eventId}, new int[]{authorId});
+            return;
+        }
+        if (size == ids.length && ids.length < capacity) {
+            resize(Math.min(Math.max(INITIAL_LENGTH, ids.length * 2), capacity));
+        }
+        if (size == capacity) {
+            start = (start + 1) % ids.length;
+            size--;
+        }
+        ids[index(size)] = eventId;
+        authors[index(size)] = authorId;
+        size++;
+    }
+
+    /*
+     * Вливает в буфер события другого буфера (по возрастанию id), отбрасывая повторы и самые старые события.
+     */
+    public void merge(EventRing other) {
+        long[] otherIds;
+        int[] otherAuthors;
+        synchronized (other) {
+            otherIds = new long[other.size];
+            otherAuthors = new int[other.size];
+            for (int i = 0; i < other.size; i++) {
+                otherIds[i] = other.ids[other.index(i)];
+                otherAuthors[i] = other.authors[other.index(i)];
+            }
+        }
+        synchronized (this) {
+            merge(otherIds, otherAuthors);
+        }
+    }
+
+    /*
+     * Копирует в outIds/outAuthors до max самых новых событий с id меньше beforeId, автор которых
+     * удовлетворяет фильтру, от новых к старым. Возвращает число скопированных событий.
+     */
+    public synchronized int collect(long beforeId, IntPredicate author, int max, long[] outIds, int[] outAuthors) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ids[index(middle)] < beforeId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        int count = 0;
+        for (int i = low - 1; i >= 0 && count < max; i--) {
+            int position = index(i);
+            if (author.test(authors[position])) {
+                outIds[count] = ids[position];
+                outAuthors[count] = authors[position];
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Удаляет события автора, сохраняя порядок остальных.
+     */
+    public synchronized void removeAuthor(int authorId) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int position = index(i);
+            if (authors[position] != authorId) {
+                int target = index(count);
+                ids[target] = ids[position];
+                authors[target] = authors[position];
+                count++;
+            }
+        }
+        size = count;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void merge(long[] otherIds, int[] otherAuthors) {
+        long[] mergedIds = new long[size + otherIds.length];
+        int[] mergedAuthors = new int[size + otherIds.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < size || j < otherIds.length) {
+            boolean takeOwn = j == otherIds.length || (i < size && ids[index(i)] <= otherIds[j]);
+            long id = takeOwn ? ids[index(i)] : otherIds[j];
+            int author = takeOwn ? authors[index(i)] : otherAuthors[j];
+            if (takeOwn) {
+                i++;
+            } else {
+                j++;
+            }
+            if (count == 0 || mergedIds[count - 1] != id) {
+                mergedIds[count] = id;
+                mergedAuthors[count] = author;
+                count++;
+            }
+        }
+
+        int from = Math.max(0, count - capacity);
+        size = count - from;
+        start = 0;
+        ids = Arrays.copyOfRange(mergedIds, from, from + Math.max(size, Math.min(INITIAL_LENGTH, capacity)));
+        authors = Arrays.copyOfRange(mergedAuthors, from, from + ids.length);
+    }
+
+    private void resize(int length) {
+        long[] newIds = new long[length];
+        int[] newAuthors = new int[length];
+        for (int i = 0; i < size; i++) {
+            newIds[i] = ids[index(i)];
+            newAuthors[i] = authors[index(i)];
+        }
+        ids = newIds;
+        authors = newAuthors;
+        start = 0;
+    }
+
+    private int index(int offset) {
+        return (start + offset) % ids.length;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кэш фильмов вместе с рейтингом, жанрами и режиссерами, чтобы чтение популярных фильмов не обращалось к БД.
+ * Ограничен filmorate.cache.films.max-size записями и filmorate.cache.films.max-weight байтами.
+ * Фильмы копируются вместе со списками жанров и режиссеров.
+ */
+@Component
+public class FilmCache extends EntityCache<Film> {
+    private static final long FILM_WEIGHT = 160;
+    private static final long REFERENCE_WEIGHT = 48;
+
+    @Autowired
+    public FilmCache(@Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                     @Value("${filmorate.cache.films.max-weight:67108864}") long maxWeight) {
+        super(maxSize, maxWeight, FilmCache::weigh, FilmCache::copy);
+    }
+
+    /*
+     * Удаляет фильмы режиссера после его переименования или удаления.
+     */
+    public void invalidateDirector(long directorId) {
+        invalidateIf(film -> film.getDirectors() != null
+                && film.getDirectors().stream().anyMatch(director -> director.getId() == directorId));
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film(film.getId(), film.getDescription(), film.getName(), film.getReleaseDate(),
+                film.getDuration(), film.getMpa()); //Mpa и Genre неизменяемы и не копируются
+        if (film.getGenres() != null) {
+            copy.setGenres(new ArrayList<>(film.getGenres()));
+        }
+        if (film.getDirectors() != null) {
+            List<Director> directors = new ArrayList<>(film.getDirectors().size());
+            for (Director director : film.getDirectors()) {
+                directors.add(new Director(director.getId(), director.getName()));
+            }
+            copy.setDirectors(directors);
+        }
+        return copy;
+    }
+
+    private static long weigh(Film film) {
+        long weight = FILM_WEIGHT + 2L * (length(film.getName()) + length(film.getDescription()));
+        if (film.getGenres() != null) {
+            weight += REFERENCE_WEIGHT * film.getGenres().size();
+        }
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                weight += REFERENCE_WEIGHT + 2L * length(director.getName());
+            }
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
\ No newline at end of file
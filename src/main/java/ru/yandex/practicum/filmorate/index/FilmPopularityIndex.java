@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Счетчики лайков фильмов и рейтинги популярности, поддерживаемые в памяти.
+ * Кроме общего рейтинга ведутся рейтинги по жанру, по году выпуска и по паре (жанр, год).
+ * Счетчики меняются вместе с таблицей likes и пересобираются из нее при старте приложения.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FilmPopularityIndex {
+    private static final Bucket ALL_FILMS = new Bucket(null, null);
+    Map<Long, FilmState> films = new ConcurrentHashMap<>();
+    Map<Bucket, NavigableSet<Entry>> rankings = new ConcurrentHashMap<>();
+    List<LikesListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(LikesListener listener) {
+        listeners.add(listener);
+    }
+
+    public void addFilm(long filmId, int year, Collection<Integer> genreIds, int likes) {
+        Bucket[] buckets = buckets(year, genreIds);
+        films.compute(filmId, (id, state) -> {
+            if (state != null) {
+                remove(id, state);
+            }
+            FilmState newState = new FilmState(likes, buckets);
+            for (Bucket bucket : buckets) {
+                ranking(bucket).add(new Entry(id, likes));
+            }
+            return newState;
+        });
+    }
+
+    public void updateFilm(long filmId, int year, Collection<Integer> genreIds) {
+        Bucket[] buckets = buckets(year, genreIds);
+        films.computeIfPresent(filmId, (id, state) -> {
+            remove(id, state);
+            for (Bucket bucket : buckets) {
+                ranking(bucket).add(new Entry(id, state.likes));
+            }
+            return new FilmState(state.likes, buckets);
+        });
+    }
+
+    public void removeFilm(long filmId) {
+        films.computeIfPresent(filmId, (id, state) -> {
+            remove(id, state);
+            return null;
+        });
+    }
+
+    /*
+     * Изменения приходят уже после фиксации в БД и из разных потоков, поэтому снятие лайка может
+     * обогнать его постановку. Счетчик не обрезается нулем, чтобы такие изменения складывались
+     * в любом порядке.
+     */
+    public void changeLikes(long filmId, int delta) {
+        setLikes(filmId, likes -> likes + delta);
+    }
+
+    public void resetLikes() {
+        for (Long filmId : films.keySet()) {
+            setLikes(filmId, likes -> 0);
+        }
+    }
+
+    public int getLikes(long filmId) {
+        FilmState state = films.get(filmId);
+        return state == null ? 0 : state.likes;
+    }
+
+    public List<Long> getTop(long count) {
+        return getTop(ALL_FILMS, count);
+    }
+
+    public List<Long> getTop(long count, Integer genreId, Integer year) {
+        return getTop(new Bucket(genreId, year), count);
+    }
+
+    public void clear() {
+        for (Long filmId : films.keySet()) {
+            removeFilm(filmId);
+        }
+    }
+
+    private List<Long> getTop(Bucket bucket, long count) {
+        NavigableSet<Entry> ranking = rankings.get(bucket);
+        if (ranking == null) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> top = new LinkedHashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+
+        while (top.size() < count && iterator.hasNext()) {
+            top.add(iterator.next().filmId);
+        }
+        return new ArrayList<>(top);
+    }
+
+    private Bucket[] buckets(int year, Collection<Integer> genreIds) {
+        Set<Integer> genres = new HashSet<>(genreIds);
+        Bucket[] buckets = new Bucket[2 + genres.size() * 2];
+        int i = 0;
+
+        buckets[i++] = ALL_FILMS;
+        buckets[i++] = new Bucket(null, year);
+        for (int genreId : genres) {
+            buckets[i++] = new Bucket(genreId, null);
+            buckets[i++] = new Bucket(genreId, year);
+        }
+        return buckets;
+    }
+
+    private void setLikes(long filmId, IntUnaryOperator newLikes) {
+        int[] change = new int[2];
+        FilmState newState = films.computeIfPresent(filmId, (id, state) -> {
+            int newCount = newLikes.applyAsInt(state.likes);
+            move(id, state, newCount);
+            change[0] = state.likes;
+            change[1] = newCount;
+            return new FilmState(newCount, state.buckets);
+        });
+
+        if (newState != null && change[0] != change[1]) {
+            for (LikesListener listener : listeners) {
+                listener.likesChanged(filmId, change[0], change[1]);
+            }
+        }
+    }
+
+    private NavigableSet<Entry> ranking(Bucket bucket) {
+        return rankings.computeIfAbsent(bucket, key -> new ConcurrentSkipListSet<>());
+    }
+
+    private void remove(long filmId, FilmState state) {
+        for (Bucket bucket : state.buckets) {
+            ranking(bucket).remove(new Entry(filmId, state.likes));
+        }
+    }
+
+    /*
+     * Новая позиция добавляется до удаления старой, чтобы читатели рейтинга не теряли фильм.
+     * Возможный кратковременный дубль отсекается в getTop().
+     */
+    private void move(long filmId, FilmState state, int newCount) {
+        if (state.likes != newCount) {
+            for (Bucket bucket : state.buckets) {
+                NavigableSet<Entry> ranking = ranking(bucket);
+                ranking.add(new Entry(filmId, newCount));
+                ranking.remove(new Entry(filmId, state.likes));
+            }
+        }
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class FilmState {
+        int likes;
+        Bucket[] buckets;
+
+        FilmState(int likes, Bucket[] buckets) {
+            this.likes = likes;
+            this.buckets = buckets;
+        }
+    }
+
+    /*
+     * Рейтинг: общий (оба поля null), по жанру, по году или по паре жанр и год.
+     */
+    @EqualsAndHashCode
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class Bucket {
+        Integer genreId;
+        Integer year;
+
+        Bucket(Integer genreId, Integer year) {
+            this.genreId = genreId;
+            this.year = year;
+        }
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class Entry implements Comparable<Entry> {
+        long filmId;
+        int likes;
+
+        Entry(long filmId, int likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Рекомендации фильмов методом коллаборативной фильтрации по матрице лайков.
+ * Для пользователя находятся ближайшие соседи по мере Жаккара, а фильмы соседей,
+ * которые пользователь еще не лайкал, ранжируются по сумме сходства с соседями.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FilmRecommender {
+    private static final int PARALLEL_THRESHOLD = 1024;
+    LikeMatrix likeMatrix;
+    FilmPopularityIndex popularityIndex;
+    ItemSimilarityIndex similarityIndex;
+    int neighbours;
+    double itemSimilarityWeight;
+
+    @Autowired
+    public FilmRecommender(LikeMatrix likeMatrix, FilmPopularityIndex popularityIndex,
+                           ItemSimilarityIndex similarityIndex,
+                           @Value("${filmorate.recommendations.neighbours:10}") int neighbours,
+                           @Value("${filmorate.recommendations.item-similarity-weight:0}") double itemSimilarityWeight) {
+        this.likeMatrix = likeMatrix;
+        this.popularityIndex = popularityIndex;
+        this.similarityIndex = similarityIndex;
+        this.neighbours = neighbours;
+        this.itemSimilarityWeight = itemSimilarityWeight;
+    }
+
+    public List<Long> recommend(long userId) {
+        int[] userLikes = likeMatrix.getUserLikes(userId);
+        if (userLikes.length == 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : findNeighbours(userId, userLikes)) {
+            for (int filmId : likeMatrix.getUserLikes(neighbour.userId)) {
+                if (!SortedInts.contains(userLikes, filmId)) {
+                    scores.merge(filmId, neighbour.similarity, Double::sum);
+                }
+            }
+        }
+
+        if (itemSimilarityWeight > 0) {
+            addSimilarFilms(userLikes, scores);
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Integer, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                        .thenComparing(entry -> popularityIndex.getLikes(entry.getKey()), Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .map(entry -> (long) entry.getKey())
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Подмешивание фильмов из модели сходства фильмов: каждый похожий на лайкнутый фильм
+     * получает оценку сходства, умноженную на вес filmorate.recommendations.item-similarity-weight.
+     */
+    private void addSimilarFilms(int[] userLikes, Map<Integer, Double> scores) {
+        ItemSimilarityModel model = similarityIndex.getModel();
+
+        for (int filmId : userLikes) {
+            int[] similarFilms = model.getNeighbours(filmId);
+            float[] similarity = model.getScores(filmId);
+
+            for (int i = 0; i < similarFilms.length; i++) {
+                if (!SortedInts.contains(userLikes, similarFilms[i])) {
+                    scores.merge(similarFilms[i], itemSimilarityWeight * similarity[i], Double::sum);
+                }
+            }
+        }
+    }
+
+    /*
+     * Кандидаты в соседи - только пользователи, лайкнувшие хотя бы один фильм из лайков пользователя.
+     * При большом числе кандидатов сходство считается параллельно в общем ForkJoinPool.
+     */
+    private List<Neighbour> findNeighbours(long userId, int[] userLikes) {
+        Set<Integer> candidates = new HashSet<>();
+        for (int filmId : userLikes) {
+            for (int otherUserId : likeMatrix.getFilmLikes(filmId)) {
+                if (otherUserId != userId) {
+                    candidates.add(otherUserId);
+                }
+            }
+        }
+
+        Stream<Integer> stream = candidates.size() >= PARALLEL_THRESHOLD
+                ? candidates.parallelStream()
+                : candidates.stream();
+
+        return stream.map(otherUserId -> new Neighbour(otherUserId,
+                        jaccard(userLikes, likeMatrix.getUserLikes(otherUserId))))
+                .filter(neighbour -> neighbour.similarity > 0)
+                .sorted(Comparator.comparingDouble((Neighbour neighbour) -> neighbour.similarity).reversed()
+                        .thenComparingInt(neighbour -> neighbour.userId))
+                .limit(neighbours)
+                .collect(Collectors.toList());
+    }
+
+    private double jaccard(int[] first, int[] second) {
+        int common = SortedInts.intersectionSize(first, second);
+        int union = first.length + second.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class Neighbour {
+        int userId;
+        double similarity;
+
+        Neighbour(int userId, double similarity) {
+            this.userId = userId;
+            this.similarity = similarity;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,720 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый индекс по названиям фильмов и именам режиссеров.
+ * Строки приводятся к нижнему регистру и раскладываются на триграммы; для каждой триграммы
+ * хранится отсортированный список id документов. Подстрока ищется пересечением списков ее триграмм
+ * с последующей проверкой кандидатов, запросы короче триграммы проверяются перебором документов в памяти.
+ * Для подсказок при вводе каждый суффикс строки, начинающийся со слова, хранится в префиксном дереве
+ * с лучшими по лайкам id в узлах. Изменения лайков не берут блокировку индекса в потоке запроса:
+ * они накапливаются и переносятся в деревья фоновой задачей, поэтому подсказки отстают от лайков
+ * на период filmorate.search.likes-apply-ms.
+ * Названия фильмов поддерживает FilmDbStorage, режиссеров и их связи с фильмами - DirectorDaoImpl.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FilmSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final String FILM = "FILM";
+    private static final String DIRECTOR = "DIRECTOR";
+    private static final int RAISED = 1;
+    private static final int LOWERED = 2;
+    FilmPopularityIndex popularityIndex;
+    TextField titles;
+    TextField directors;
+    Map<Integer, int[]> filmDirectors = new HashMap<>();
+    Map<Integer, int[]> directorFilms = new HashMap<>();
+    Map<Integer, Integer> pendingLikes = new ConcurrentHashMap<>();
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public FilmSearchIndex(FilmPopularityIndex popularityIndex,
+                           @Value("${filmorate.search.suggestions:10}") int suggestions,
+                           @Value("${filmorate.search.fuzzy-distance:2}") int fuzzyDistance) {
+        this.popularityIndex = popularityIndex;
+        this.titles = new TextField(new PrefixTrie(suggestions, popularityIndex::getLikes), fuzzyDistance);
+        this.directors = new TextField(new PrefixTrie(suggestions, this::getDirectorLikes), fuzzyDistance);
+    }
+
+    @PostConstruct
+    private void subscribe() {
+        popularityIndex.addListener(this::likesChanged);
+    }
+
+    /*
+     * Пересборка при старте идет через putAll, чтобы каждый список id триграммы и слова строился
+     * одной сортировкой, а не копировался заново для каждого фильма.
+     */
+    public void rebuildFilms(Map<Long, String> filmTitles) {
+        Map<Integer, String> texts = new HashMap<>();
+        filmTitles.forEach((filmId, title) -> texts.put(SortedInts.toId(filmId), title));
+
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            titles.putAll(texts);
+            titles.trie.invalidateAll();
+            directors.trie.invalidateAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuildDirectors(Map<Long, String> names, Map<Long, List<Long>> directorIdsByFilm) {
+        Map<Integer, String> texts = new HashMap<>();
+        names.forEach((directorId, name) -> texts.put(SortedInts.toId(directorId), name));
+        Map<Integer, int[]> directorsByFilm = new HashMap<>();
+        Map<Integer, List<Integer>> filmsByDirector = new HashMap<>();
+        directorIdsByFilm.forEach((filmId, directorIds) -> {
+            int film = SortedInts.toId(filmId);
+            List<Integer> filmDirectorIds = new ArrayList<>(directorIds.size());
+            for (Long directorId : directorIds) {
+                int director = SortedInts.toId(directorId);
+                filmDirectorIds.add(director);
+                filmsByDirector.computeIfAbsent(director, id -> new ArrayList<>()).add(film);
+            }
+            if (!filmDirectorIds.isEmpty()) {
+                directorsByFilm.put(film, SortedInts.of(filmDirectorIds));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            directors.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            directors.putAll(texts);
+            filmDirectors.putAll(directorsByFilm);
+            filmsByDirector.forEach((director, films) -> directorFilms.put(director, SortedInts.of(films)));
+            directors.trie.invalidateAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putFilm(long filmId, String title) {
+        int film = SortedInts.toId(filmId);
+        lock.writeLock().lock();
+        try {
+            titles.remove(film);
+            titles.put(film, title);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Добавление пакета новых фильмов с режиссерами: списки id триграмм, слов и режиссеров
+     * пополняются один раз на пакет, а не копируются заново для каждого фильма.
+     */
+    public void putFilms(Map<Long, String> filmTitles, Map<Long, ? extends Collection<Long>> directorIdsByFilm) {
+        Map<Integer, String> texts = new HashMap<>();
+        filmTitles.forEach((filmId, title) -> texts.put(SortedInts.toId(filmId), title));
+        Map<Integer, List<Integer>> filmsByDirector = new HashMap<>();
+        directorIdsByFilm.forEach((filmId, directorIds) -> {
+            for (Long directorId : directorIds) {
+                filmsByDirector.computeIfAbsent(SortedInts.toId(directorId), id -> new ArrayList<>())
+                        .add(SortedInts.toId(filmId));
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            for (int film : texts.keySet()) {
+                titles.remove(film);
+            }
+            titles.putAll(texts);
+            filmsByDirector.forEach((director, films) -> {
+                for (int film : films) {
+                    filmDirectors.put(film, SortedInts.insert(filmDirectors.getOrDefault(film, SortedInts.EMPTY),
+                            director));
+                }
+                directorFilms.put(director, SortedInts.union(directorFilms.getOrDefault(director, SortedInts.EMPTY),
+                        SortedInts.of(films)));
+                directors.raise(director);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        int film = SortedInts.toId(filmId);
+        lock.writeLock().lock();
+        try {
+            titles.remove(film);
+            removeFilmDirectors(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clearFilms() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            directors.trie.invalidateAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(long directorId, String name) {
+        int director = SortedInts.toId(directorId);
+        lock.writeLock().lock();
+        try {
+            directors.remove(director);
+            directors.put(director, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(long directorId) {
+        int director = SortedInts.toId(directorId);
+        lock.writeLock().lock();
+        try {
+            directors.remove(director);
+            int[] films = directorFilms.remove(director);
+            if (films != null) {
+                for (int film : films) {
+                    replace(filmDirectors, film, SortedInts.delete(filmDirectors.get(film), director));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clearDirectors() {
+        lock.writeLock().lock();
+        try {
+            directors.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addFilmDirectors(long filmId, Collection<Long> directorIds) {
+        int film = SortedInts.toId(filmId);
+        lock.writeLock().lock();
+        try {
+            for (Long directorId : directorIds) {
+                int director = SortedInts.toId(directorId);
+                link(film, director);
+                directors.raise(director);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilmDirectors(long filmId) {
+        int film = SortedInts.toId(filmId);
+        lock.writeLock().lock();
+        try {
+            removeFilmDirectors(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, boolean byTitle, boolean byDirector) {
+        return search(query, byTitle, byDirector, false);
+    }
+
+    /*
+     * Id фильмов, у которых название и/или имя одного из режиссеров содержит query без учета регистра,
+     * по убыванию количества лайков, при равенстве - по id.
+     * В нечетком режиме добавляются фильмы, где каждому слову запроса соответствует слово документа
+     * в пределах допустимого расстояния Левенштейна; такие фильмы упорядочиваются сначала по сумме расстояний.
+     */
+    public List<Long> search(String query, boolean byTitle, boolean byDirector, boolean fuzzy) {
+        String text = normalize(query);
+        Map<Integer, Integer> distances = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            if (byTitle) {
+                if (fuzzy) {
+                    titles.fuzzyMatch(text).forEach((film, distance) -> distances.merge(film, distance, Math::min));
+                }
+                for (int film : titles.match(text)) {
+                    distances.put(film, 0);
+                }
+            }
+            if (byDirector) {
+                Map<Integer, Integer> directorDistances = new HashMap<>();
+                if (fuzzy) {
+                    directorDistances.putAll(directors.fuzzyMatch(text));
+                }
+                for (int director : directors.match(text)) {
+                    directorDistances.put(director, 0);
+                }
+                directorDistances.forEach((director, distance) -> {
+                    for (int film : directorFilms.getOrDefault(director, SortedInts.EMPTY)) {
+                        distances.merge(film, distance, Math::min);
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> filmIds = new ArrayList<>();
+        for (int film : distances.keySet()) {
+            filmIds.add((long) film);
+        }
+        filmIds.sort(Comparator.<Long, Integer>comparing(film -> distances.get(film.intValue()))
+                .thenComparing(popularityIndex::getLikes, Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+        return filmIds;
+    }
+
+    /*
+     * Подсказки по началу слова в названии фильма или имени режиссера. Фильмы ранжируются по лайкам,
+     * режиссеры - по сумме лайков их фильмов.
+     */
+    public List<Suggestion> suggest(String prefix, int count) {
+        String text = normalize(prefix).stripLeading();
+        List<Suggestion> suggestions = new ArrayList<>();
+        Map<Suggestion, Long> likes = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (int film : titles.trie.top(text)) {
+                Suggestion suggestion = Suggestion.builder().type(FILM).id(film).name(titles.labels.get(film)).build();
+                suggestions.add(suggestion);
+                likes.put(suggestion, (long) popularityIndex.getLikes(film));
+            }
+            for (int director : directors.trie.top(text)) {
+                Suggestion suggestion = Suggestion.builder().type(DIRECTOR).id(director)
+                        .name(directors.labels.get(director)).build();
+                suggestions.add(suggestion);
+                likes.put(suggestion, getDirectorLikes(director));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        suggestions.sort(Comparator.comparing(likes::get, Comparator.reverseOrder()));
+        return suggestions.subList(0, Math.min(Math.max(count, 0), suggestions.size()));
+    }
+
+    /*
+     * Переносит накопленные изменения лайков в деревья подсказок. Продвижение id в лучшем списке узла
+     * верно, только если остальные id списка упорядочены по текущим лайкам, а за время ожидания
+     * изменились лайки сразу нескольких фильмов. Поэтому сначала все измененные фильмы и их режиссеры
+     * помечают свои узлы устаревшими, и только затем выросшие продвигаются в оставшихся узлах.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.search.likes-apply-ms:100}")
+    public void applyPendingLikes() {
+        if (pendingLikes.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Map<Integer, Integer> changes = new HashMap<>();
+            for (Integer film : pendingLikes.keySet()) {
+                Integer filmChanges = pendingLikes.remove(film);
+                if (filmChanges != null) {
+                    changes.put(film, filmChanges);
+                }
+            }
+
+            changes.keySet().forEach(film -> {
+                titles.lower(film);
+                for (int director : filmDirectors.getOrDefault(film, SortedInts.EMPTY)) {
+                    directors.lower(director);
+                }
+            });
+            changes.forEach((film, filmChanges) -> {
+                if ((filmChanges & RAISED) != 0) {
+                    titles.raise(film);
+                    for (int director : filmDirectors.getOrDefault(film, SortedInts.EMPTY)) {
+                        directors.raise(director);
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void likesChanged(long filmId, int oldLikes, int newLikes) {
+        if (SortedInts.isId(filmId)) {
+            pendingLikes.merge((int) filmId, newLikes > oldLikes ? RAISED : LOWERED, (a, b) -> a | b);
+        }
+    }
+
+    private long getDirectorLikes(int director) {
+        long likes = 0;
+        for (int film : directorFilms.getOrDefault(director, SortedInts.EMPTY)) {
+            likes += popularityIndex.getLikes(film);
+        }
+        return likes;
+    }
+
+    private void link(int film, int director) {
+        filmDirectors.put(film, SortedInts.insert(filmDirectors.getOrDefault(film, SortedInts.EMPTY), director));
+        directorFilms.put(director, SortedInts.insert(directorFilms.getOrDefault(director, SortedInts.EMPTY), film));
+    }
+
+    private void removeFilmDirectors(int film) {
+        int[] linkedDirectors = filmDirectors.remove(film);
+        if (linkedDirectors != null) {
+            for (int director : linkedDirectors) {
+                replace(directorFilms, director, SortedInts.delete(directorFilms.get(director), film));
+                directors.lower(director);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static <K> void replace(Map<K, int[]> map, K key, int[] values) {
+        if (values.length == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, values);
+        }
+    }
+
+    /*
+     * Индексируемое текстовое поле: исходные строки, строки в нижнем регистре,
+     * триграммы для поиска подстроки, префиксное дерево для подсказок
+     * и словарь слов с индексом удалений (symmetric delete) для нечеткого поиска:
+     * для каждого слова хранятся все варианты с удалением до fuzzyDistance символов,
+     * и слова на расстоянии не больше d от запроса находятся среди слов с общим вариантом удаления.
+     */
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    private static class TextField {
+        Map<Integer, String> labels = new HashMap<>();
+        Map<Integer, String> documents = new HashMap<>();
+        Map<String, int[]> grams = new HashMap<>();
+        Map<String, int[]> terms = new HashMap<>();
+        Map<String, Set<String>> deletes = new HashMap<>();
+        PrefixTrie trie;
+        int fuzzyDistance;
+
+        TextField(PrefixTrie trie, int fuzzyDistance) {
+            this.trie = trie;
+            this.fuzzyDistance = fuzzyDistance;
+        }
+
+        void put(int id, String text) {
+            String document = normalize(text);
+            labels.put(id, text);
+            documents.put(id, document);
+            for (String gram : grams(document)) {
+                grams.put(gram, SortedInts.insert(grams.getOrDefault(gram, SortedInts.EMPTY), id));
+            }
+            for (String key : keys(document)) {
+                trie.add(key, id);
+            }
+            for (String term : terms(document)) {
+                int[] ids = terms.get(term);
+                if (ids == null) {
+                    for (String variant : deletes(term, fuzzyDistance)) {
+                        deletes.computeIfAbsent(variant, key -> new HashSet<>()).add(term);
+                    }
+                    ids = SortedInts.EMPTY;
+                }
+                terms.put(term, SortedInts.insert(ids, id));
+            }
+        }
+
+        void putAll(Map<Integer, String> texts) {
+            Map<String, List<Integer>> newGrams = new HashMap<>();
+            Map<String, List<Integer>> newTerms = new HashMap<>();
+            texts.forEach((id, text) -> {
+                String document = normalize(text);
+                labels.put(id, text);
+                documents.put(id, document);
+                for (String gram : grams(document)) {
+                    newGrams.computeIfAbsent(gram, key -> new ArrayList<>()).add(id);
+                }
+                for (String key : keys(document)) {
+                    trie.add(key, id);
+                }
+                for (String term : terms(document)) {
+                    newTerms.computeIfAbsent(term, key -> new ArrayList<>()).add(id);
+                }
+            });
+
+            newGrams.forEach((gram, ids) -> grams.put(gram,
+                    SortedInts.union(grams.getOrDefault(gram, SortedInts.EMPTY), SortedInts.of(ids))));
+            newTerms.forEach((term, ids) -> {
+                int[] termIds = terms.get(term);
+                if (termIds == null) {
+                    for (String variant : deletes(term, fuzzyDistance)) {
+                        deletes.computeIfAbsent(variant, key -> new HashSet<>()).add(term);
+                    }
+                    termIds = SortedInts.EMPTY;
+                }
+                terms.put(term, SortedInts.union(termIds, SortedInts.of(ids)));
+            });
+        }
+
+        void remove(int id) {
+            labels.remove(id);
+            String document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            for (String gram : grams(document)) {
+                int[] ids = grams.get(gram);
+                if (ids != null) {
+                    replace(grams, gram, SortedInts.delete(ids, id));
+                }
+            }
+            for (String key : keys(document)) {
+                trie.remove(key, id);
+            }
+            for (String term : terms(document)) {
+                int[] ids = terms.get(term);
+                if (ids == null) {
+                    continue;
+                }
+                ids = SortedInts.delete(ids, id);
+                if (ids.length > 0) {
+                    terms.put(term, ids);
+                    continue;
+                }
+                terms.remove(term);
+                for (String variant : deletes(term, fuzzyDistance)) {
+                    Set<String> variantTerms = deletes.get(variant);
+                    if (variantTerms != null && variantTerms.remove(term) && variantTerms.isEmpty()) {
+                        deletes.remove(variant);
+                    }
+                }
+            }
+        }
+
+        void raise(int id) {
+            String document = documents.get(id);
+            if (document != null) {
+                for (String key : keys(document)) {
+                    trie.raise(key, id);
+                }
+            }
+        }
+
+        void lower(int id) {
+            String document = documents.get(id);
+            if (document != null) {
+                for (String key : keys(document)) {
+                    trie.lower(key, id);
+                }
+            }
+        }
+
+        void clear() {
+            labels.clear();
+            documents.clear();
+            grams.clear();
+            terms.clear();
+            deletes.clear();
+            trie.clear();
+        }
+
+        List<Integer> match(String text) {
+            List<Integer> matches = new ArrayList<>();
+
+            if (text.length() < GRAM_LENGTH) {
+                documents.forEach((id, document) -> {
+                    if (document.contains(text)) {
+                        matches.add(id);
+                    }
+                });
+                return matches;
+            }
+
+            List<int[]> postings = new ArrayList<>();
+            for (String gram : grams(text)) {
+                int[] ids = grams.get(gram);
+                if (ids == null) {
+                    return matches;
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(ids -> ids.length));
+
+            int[] candidates = postings.get(0);
+            for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+                candidates = SortedInts.intersection(candidates, postings.get(i));
+            }
+            for (int id : candidates) {
+                if (documents.get(id).contains(text)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        }
+
+        /*
+         * Документы, в которых каждому слову запроса соответствует слово на допустимом расстоянии,
+         * с суммой минимальных расстояний по словам запроса.
+         */
+        Map<Integer, Integer> fuzzyMatch(String text) {
+            Map<Integer, Integer> result = null;
+
+            for (String token : terms(text)) {
+                int distance = allowedDistance(token);
+                Set<String> candidates = new HashSet<>();
+                for (String variant : deletes(token, distance)) {
+                    Set<String> variantTerms = deletes.get(variant);
+                    if (variantTerms != null) {
+                        candidates.addAll(variantTerms);
+                    }
+                }
+
+                Map<Integer, Integer> tokenDocuments = new HashMap<>();
+                for (String term : candidates) {
+                    int termDistance = levenshtein(token, term, distance);
+                    if (termDistance <= distance) {
+                        for (int id : terms.get(term)) {
+                            tokenDocuments.merge(id, termDistance, Math::min);
+                        }
+                    }
+                }
+
+                if (result == null) {
+                    result = tokenDocuments;
+                } else {
+                    Map<Integer, Integer> intersection = new HashMap<>();
+                    for (Map.Entry<Integer, Integer> entry : result.entrySet()) {
+                        Integer tokenDistance = tokenDocuments.get(entry.getKey());
+                        if (tokenDistance != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + tokenDistance);
+                        }
+                    }
+                    result = intersection;
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result == null ? new HashMap<>() : result;
+        }
+
+        /*
+         * Допустимое число опечаток зависит от длины слова: в коротких словах одна опечатка
+         * уже делает совпадение случайным.
+         */
+        private int allowedDistance(String token) {
+            if (token.length() <= 2) {
+                return 0;
+            }
+            if (token.length() <= 5) {
+                return Math.min(1, fuzzyDistance);
+            }
+            return fuzzyDistance;
+        }
+
+        private static Set<String> terms(String document) {
+            Set<String> terms = new HashSet<>();
+            for (String term : document.split("[^\\p{L}\\p{N}]+")) {
+                if (!term.isEmpty()) {
+                    terms.add(term);
+                }
+            }
+            return terms;
+        }
+
+        private static Set<String> deletes(String term, int distance) {
+            Set<String> variants = new HashSet<>();
+            variants.add(term);
+            Set<String> level = variants;
+
+            for (int i = 0; i < distance; i++) {
+                Set<String> next = new HashSet<>();
+                for (String variant : level) {
+                    for (int position = 0; position < variant.length(); position++) {
+                        next.add(variant.substring(0, position) + variant.substring(position + 1));
+                    }
+                }
+                variants.addAll(next);
+                level = next;
+            }
+            return variants;
+        }
+
+        /*
+         * Расстояние Левенштейна с отсечением: как только все значения строки превышают limit,
+         * возвращается limit + 1.
+         */
+        private static int levenshtein(String source, String target, int limit) {
+            if (Math.abs(source.length() - target.length()) > limit) {
+                return limit + 1;
+            }
+
+            int[] previous = new int[target.length() + 1];
+            int[] current = new int[target.length() + 1];
+            for (int j = 0; j <= target.length(); j++) {
+                previous[j] = j;
+            }
+
+            for (int i = 1; i <= source.length(); i++) {
+                current[0] = i;
+                int rowMin = current[0];
+                for (int j = 1; j <= target.length(); j++) {
+                    int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                    current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (rowMin > limit) {
+                    return limit + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return Math.min(previous[target.length()], limit + 1);
+        }
+
+        private static Set<String> grams(String document) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= document.length(); i++) {
+                grams.add(document.substring(i, i + GRAM_LENGTH));
+            }
+            return grams;
+        }
+
+        /*
+         * Суффиксы строки, начинающиеся с каждого слова: "star wars" -> "star wars", "wars".
+         */
+        private static Set<String> keys(String document) {
+            Set<String> keys = new HashSet<>();
+            for (int i = 0; i < document.length(); i++) {
+                boolean wordStart = Character.isLetterOrDigit(document.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(document.charAt(i - 1)));
+                if (wordStart) {
+                    keys.add(document.substring(i));
+                }
+            }
+            return keys;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Граф дружбы в памяти, повторяющий таблицу friends.
+ * Для каждого пользователя хранятся отсортированные массивы id друзей (исходящие связи)
+ * и подписчиков (пользователей, добавивших его в друзья). Массивы заменяются целиком при изменении,
+ * поэтому чтение не требует блокировок.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FriendGraph {
+    Map<Integer, int[]> friends = new ConcurrentHashMap<>();
+    Map<Integer, int[]> followers = new ConcurrentHashMap<>();
+
+    /*
+     * Массивы строятся одной сортировкой на пользователя, без вставки по одной связи.
+     */
+    public synchronized void rebuild(Map<Long, List<Long>> friendIdsByUser) {
+        clear();
+        Map<Integer, List<Integer>> followerIds = new HashMap<>();
+        friendIdsByUser.forEach((userId, friendIds) -> {
+            int user = SortedInts.toId(userId);
+            List<Integer> userFriends = new ArrayList<>(friendIds.size());
+            for (Long friendId : friendIds) {
+                int friend = SortedInts.toId(friendId);
+                userFriends.add(friend);
+                followerIds.computeIfAbsent(friend, id -> new ArrayList<>()).add(user);
+            }
+            if (!userFriends.isEmpty()) {
+                friends.put(user, SortedInts.of(userFriends));
+            }
+        });
+        followerIds.forEach((friend, users) -> followers.put(friend, SortedInts.of(users)));
+    }
+
+    public synchronized void addFriend(long userId, long friendId) {
+        int user = SortedInts.toId(userId);
+        int friend = SortedInts.toId(friendId);
+        friends.put(user, SortedInts.insert(friends.getOrDefault(user, SortedInts.EMPTY), friend));
+        followers.put(friend, SortedInts.insert(followers.getOrDefault(friend, SortedInts.EMPTY), user));
+    }
+
+    public synchronized void removeFriend(long userId, long friendId) {
+        int user = SortedInts.toId(userId);
+        int friend = SortedInts.toId(friendId);
+        replace(friends, user, SortedInts.delete(friends.getOrDefault(user, SortedInts.EMPTY), friend));
+        replace(followers, friend, SortedInts.delete(followers.getOrDefault(friend, SortedInts.EMPTY), user));
+    }
+
+    public synchronized void removeUser(long userId) {
+        int user = SortedInts.toId(userId);
+        int[] userFriends = friends.remove(user);
+        int[] userFollowers = followers.remove(user);
+
+        if (userFriends != null) {
+            for (int friend : userFriends) {
+                replace(followers, friend, SortedInts.delete(followers.getOrDefault(friend, SortedInts.EMPTY), user));
+            }
+        }
+        if (userFollowers != null) {
+            for (int follower : userFollowers) {
+                replace(friends, follower, SortedInts.delete(friends.getOrDefault(follower, SortedInts.EMPTY), user));
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        friends.clear();
+        followers.clear();
+    }
+
+    public int[] getFriends(long userId) {
+        return SortedInts.isId(userId) ? friends.getOrDefault((int) userId, SortedInts.EMPTY) : SortedInts.EMPTY;
+    }
+
+    public int[] getFollowers(long userId) {
+        return SortedInts.isId(userId) ? followers.getOrDefault((int) userId, SortedInts.EMPTY) : SortedInts.EMPTY;
+    }
+
+    public int[] getCommonFriends(long userId, long otherUserId) {
+        return SortedInts.intersection(getFriends(userId), getFriends(otherUserId));
+    }
+
+    private void replace(Map<Integer, int[]> map, int key, int[] values) {
+        if (values.length == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, values);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Запросы по графу дружбы: знакомые второго круга и степень разделения пользователей.
+ * Обходы ограничены бюджетом, чтобы время ответа не зависело от размера графа:
+ * filmorate.friends.suggestions-budget - сколько связей друзей просматривается при подборе знакомых,
+ * filmorate.friends.distance-budget - сколько вершин может посетить поиск расстояния.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FriendNetwork {
+    public static final int UNREACHABLE = -1;
+    public static final int UNKNOWN = -2; //бюджет поиска исчерпан раньше, чем путь найден или исключен
+    FriendGraph friendGraph;
+    int suggestionsBudget;
+    int distanceBudget;
+
+    @Autowired
+    public FriendNetwork(FriendGraph friendGraph,
+                         @Value("${filmorate.friends.suggestions-budget:100000}") int suggestionsBudget,
+                         @Value("${filmorate.friends.distance-budget:100000}") int distanceBudget) {
+        this.friendGraph = friendGraph;
+        this.suggestionsBudget = suggestionsBudget;
+        this.distanceBudget = distanceBudget;
+    }
+
+    /*
+     * Друзья друзей, которых пользователь еще не добавил, упорядоченные по числу общих друзей,
+     * при равенстве - по id.
+     */
+    public List<Long> getSuggestions(long userId, int count) {
+        int[] friends = friendGraph.getFriends(userId);
+        Map<Integer, Integer> mutualFriends = new HashMap<>();
+        int budget = suggestionsBudget;
+
+        for (int friend : friends) {
+            for (int candidate : friendGraph.getFriends(friend)) {
+                if (--budget < 0) {
+                    break;
+                }
+                if (candidate != userId && !SortedInts.contains(friends, candidate)) {
+                    mutualFriends.merge(candidate, 1, Integer::sum);
+                }
+            }
+            if (budget < 0) {
+                break;
+            }
+        }
+
+        return mutualFriends.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(Math.max(count, 0))
+                .map(entry -> (long) entry.getKey())
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Двунаправленный поиск в ширину: от userId по друзьям, от otherUserId по подписчикам.
+     * На каждом шаге целиком раскрывается уровень меньшего фронта; минимальная сумма глубин
+     * среди встреч на этом уровне и есть кратчайший путь. Если пути нет, возвращается UNREACHABLE,
+     * если бюджет исчерпан до того, как путь найден, - UNKNOWN.
+     */
+    public int getDistance(long userId, long otherUserId) {
+        if (userId == otherUserId) {
+            return 0;
+        }
+        if (!SortedInts.isId(userId) || !SortedInts.isId(otherUserId)) {
+            return UNREACHABLE;
+        }
+
+        Map<Integer, Integer> forwardDepth = new HashMap<>();
+        Map<Integer, Integer> backwardDepth = new HashMap<>();
+        forwardDepth.put((int) userId, 0);
+        backwardDepth.put((int) otherUserId, 0);
+        List<Integer> forwardFrontier = List.of((int) userId);
+        List<Integer> backwardFrontier = List.of((int) otherUserId);
+        int visited = 2;
+
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            boolean forward = forwardFrontier.size() <= backwardFrontier.size();
+            List<Integer> frontier = forward ? forwardFrontier : backwardFrontier;
+            Map<Integer, Integer> depth = forward ? forwardDepth : backwardDepth;
+            Map<Integer, Integer> otherDepth = forward ? backwardDepth : forwardDepth;
+
+            List<Integer> next = new ArrayList<>();
+            int best = Integer.MAX_VALUE;
+
+            for (int node : frontier) {
+                int nodeDepth = depth.get(node);
+                int[] neighbours = forward ? friendGraph.getFriends(node) : friendGraph.getFollowers(node);
+
+                for (int neighbour : neighbours) {
+                    Integer meeting = otherDepth.get(neighbour);
+                    if (meeting != null) {
+                        best = Math.min(best, nodeDepth + 1 + meeting);
+                    }
+                    if (depth.putIfAbsent(neighbour, nodeDepth + 1) == null) {
+                        next.add(neighbour);
+                        if (++visited > distanceBudget) {
+                            return best == Integer.MAX_VALUE ? UNKNOWN : best;
+                        }
+                    }
+                }
+            }
+
+            if (best != Integer.MAX_VALUE) {
+                return best;
+            }
+            if (forward) {
+                forwardFrontier = next;
+            } else {
+                backwardFrontier = next;
+            }
+        }
+        return UNREACHABLE;
+    }
+}
\ No newline at end of file
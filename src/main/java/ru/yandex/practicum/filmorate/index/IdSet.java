@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Компактное множество живых id (фильмов или пользователей) в виде битовой карты.
+ * Проверка наличия id выполняется за O(1) без обращения к БД.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class IdSet {
+    BitSet ids = new BitSet();
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public boolean contains(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get((int) id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(long id) {
+        checkId(id);
+        lock.writeLock().lock();
+        try {
+            ids.set((int) id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.clear((int) id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reset(Collection<Long> newIds) {
+        BitSet bits = new BitSet();
+        for (long id : newIds) {
+            checkId(id);
+            bits.set((int) id);
+        }
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            ids.or(bits);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkId(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Недопустимый id: %d", id));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Фоновое построение модели сходства фильмов по матрице лайков.
+ * Сходство считается как косинус между столбцами матрицы: общие лайки / sqrt(лайки X * лайки Y).
+ * Готовая модель подменяет предыдущую атомарно, запросы читают последнюю построенную версию.
+ */
+@Component
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ItemSimilarityIndex {
+    LikeMatrix likeMatrix;
+    int neighbours;
+    AtomicReference<ItemSimilarityModel> model = new AtomicReference<>(ItemSimilarityModel.EMPTY);
+
+    @Autowired
+    public ItemSimilarityIndex(LikeMatrix likeMatrix,
+                               @Value("${filmorate.similarity.neighbours:20}") int neighbours) {
+        this.likeMatrix = likeMatrix;
+        this.neighbours = neighbours;
+    }
+
+    public ItemSimilarityModel getModel() {
+        return model.get();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.similarity.refresh-ms:300000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int[] filmIds = likeMatrix.getFilmIds().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] offsets = new int[filmIds.length + 1];
+        int[] neighbourIds = new int[Math.max(16, filmIds.length)];
+        float[] scores = new float[neighbourIds.length];
+        int size = 0;
+
+        for (int i = 0; i < filmIds.length; i++) {
+            offsets[i] = size;
+            for (Map.Entry<Integer, Float> neighbour : findNeighbours(filmIds[i])) {
+                if (size == neighbourIds.length) {
+                    neighbourIds = Arrays.copyOf(neighbourIds, size * 2);
+                    scores = Arrays.copyOf(scores, size * 2);
+                }
+                neighbourIds[size] = neighbour.getKey();
+                scores[size] = neighbour.getValue();
+                size++;
+            }
+        }
+        offsets[filmIds.length] = size;
+
+        model.set(new ItemSimilarityModel(filmIds, offsets, Arrays.copyOf(neighbourIds, size),
+                Arrays.copyOf(scores, size)));
+        log.info("Модель сходства фильмов перестроена: {} фильмов за {} мс", filmIds.length,
+                System.currentTimeMillis() - start);
+    }
+
+    private List<Map.Entry<Integer, Float>> findNeighbours(int filmId) {
+        int[] users = likeMatrix.getFilmLikes(filmId);
+        Map<Integer, Integer> commonLikes = new HashMap<>();
+
+        for (int userId : users) {
+            for (int otherFilmId : likeMatrix.getUserLikes(userId)) {
+                if (otherFilmId != filmId) {
+                    commonLikes.merge(otherFilmId, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<Integer, Float>> similar = new ArrayList<>();
+        commonLikes.forEach((otherFilmId, common) -> {
+            int otherLikes = likeMatrix.getFilmLikes(otherFilmId).length;
+            if (otherLikes > 0) {
+                float score = (float) (common / Math.sqrt((double) users.length * otherLikes));
+                similar.add(new AbstractMap.SimpleImmutableEntry<>(otherFilmId, score));
+            }
+        });
+
+        similar.sort(Map.Entry.<Integer, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return similar.size() > neighbours ? similar.subList(0, neighbours) : similar;
+    }
+}
\ No newline at end of file
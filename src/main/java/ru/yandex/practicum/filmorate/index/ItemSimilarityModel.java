@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемая таблица сходства фильмов «кто лайкнул X, лайкнул и Y».
+ * Для каждого фильма хранятся до M соседей с оценками в общих массивах примитивов:
+ * соседи фильма filmIds[i] лежат в neighbourIds и scores в диапазоне [offsets[i], offsets[i + 1]).
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ItemSimilarityModel {
+    public static final ItemSimilarityModel EMPTY = new ItemSimilarityModel(new int[0], new int[]{0},
+            new int[0], new float[0]);
+    int[] filmIds;
+    int[] offsets;
+    int[] neighbourIds;
+    float[] scores;
+
+    public ItemSimilarityModel(int[] filmIds, int[] offsets, int[] neighbourIds, float[] scores) {
+        this.filmIds = filmIds;
+        this.offsets = offsets;
+        this.neighbourIds = neighbourIds;
+        this.scores = scores;
+    }
+
+    public int[] getNeighbours(long filmId) {
+        int position = position(filmId);
+        return position < 0 ? SortedInts.EMPTY : Arrays.copyOfRange(neighbourIds, offsets[position],
+                offsets[position + 1]);
+    }
+
+    public float[] getScores(long filmId) {
+        int position = position(filmId);
+        return position < 0 ? new float[0] : Arrays.copyOfRange(scores, offsets[position], offsets[position + 1]);
+    }
+
+    public int size() {
+        return filmIds.length;
+    }
+
+    private int position(long filmId) {
+        return SortedInts.isId(filmId) ? Arrays.binarySearch(filmIds, (int) filmId) : -1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Матрица лайков пользователь × фильм в памяти.
+ * Строки и столбцы хранятся как отсортированные массивы id, которые заменяются целиком при изменении,
+ * поэтому чтение не требует блокировок. Матрица повторяет таблицу likes и пересобирается из нее при старте.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class LikeMatrix {
+    Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    Map<Integer, int[]> usersByFilm = new ConcurrentHashMap<>();
+
+    /*
+     * Массивы строятся одной сортировкой на пользователя и на фильм, без вставки по одному лайку.
+     */
+    public synchronized void rebuild(Map<Long, List<Long>> likedFilmsByUser) {
+        clear();
+        Map<Integer, List<Integer>> userIdsByFilm = new HashMap<>();
+        likedFilmsByUser.forEach((userId, filmIds) -> {
+            int user = SortedInts.toId(userId);
+            List<Integer> films = new ArrayList<>(filmIds.size());
+            for (Long filmId : filmIds) {
+                int film = SortedInts.toId(filmId);
+                films.add(film);
+                userIdsByFilm.computeIfAbsent(film, id -> new ArrayList<>()).add(user);
+            }
+            if (!films.isEmpty()) {
+                filmsByUser.put(user, SortedInts.of(films));
+            }
+        });
+        userIdsByFilm.forEach((film, users) -> usersByFilm.put(film, SortedInts.of(users)));
+    }
+
+    public synchronized void add(long userId, long filmId) {
+        int user = SortedInts.toId(userId);
+        int film = SortedInts.toId(filmId);
+        filmsByUser.put(user, SortedInts.insert(filmsByUser.getOrDefault(user, SortedInts.EMPTY), film));
+        usersByFilm.put(film, SortedInts.insert(usersByFilm.getOrDefault(film, SortedInts.EMPTY), user));
+    }
+
+    public synchronized void remove(long userId, long filmId) {
+        int user = SortedInts.toId(userId);
+        int film = SortedInts.toId(filmId);
+        replace(filmsByUser, user, SortedInts.delete(filmsByUser.getOrDefault(user, SortedInts.EMPTY), film));
+        replace(usersByFilm, film, SortedInts.delete(usersByFilm.getOrDefault(film, SortedInts.EMPTY), user));
+    }
+
+    /**
+     * Удаление всех лайков пользователя.
+     *
+     * @return id фильмов, которые лайкал пользователь
+     */
+    public synchronized int[] removeUser(long userId) {
+        int user = SortedInts.toId(userId);
+        int[] films = filmsByUser.remove(user);
+        if (films == null) {
+            return SortedInts.EMPTY;
+        }
+
+        for (int film : films) {
+            replace(usersByFilm, film, SortedInts.delete(usersByFilm.getOrDefault(film, SortedInts.EMPTY), user));
+        }
+        return films;
+    }
+
+    public synchronized void removeFilm(long filmId) {
+        int film = SortedInts.toId(filmId);
+        int[] users = usersByFilm.remove(film);
+        if (users == null) {
+            return;
+        }
+
+        for (int user : users) {
+            replace(filmsByUser, user, SortedInts.delete(filmsByUser.getOrDefault(user, SortedInts.EMPTY), film));
+        }
+    }
+
+    public synchronized void clear() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+    }
+
+    public int[] getUserLikes(long userId) {
+        return SortedInts.isId(userId) ? filmsByUser.getOrDefault((int) userId, SortedInts.EMPTY) : SortedInts.EMPTY;
+    }
+
+    public int[] getFilmLikes(long filmId) {
+        return SortedInts.isId(filmId) ? usersByFilm.getOrDefault((int) filmId, SortedInts.EMPTY) : SortedInts.EMPTY;
+    }
+
+    public boolean hasLike(long userId, long filmId) {
+        return SortedInts.isId(filmId) && SortedInts.contains(getUserLikes(userId), (int) filmId);
+    }
+
+    public Set<Integer> getFilmIds() {
+        return Collections.unmodifiableSet(usersByFilm.keySet());
+    }
+
+    private void replace(Map<Integer, int[]> map, int key, int[] values) {
+        if (values.length == 0) {
+            map.remove(key);
+        } else {
+            map.put(key, values);
+        }
+    }
+}
\ No newline at end of file
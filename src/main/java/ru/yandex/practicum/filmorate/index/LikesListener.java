@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.index;
+
+/**
+ * Получатель изменений счетчиков лайков из FilmPopularityIndex.
+ */
+@FunctionalInterface
+public interface LikesListener {
+
+    void likesChanged(long filmId, int oldLikes, int newLikes);
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Префиксное дерево строк, в каждом узле которого хранятся id с наибольшим весом в поддереве.
+ * Дети узла хранятся в отсортированных массивах символов, а не в хэш-таблицах, чтобы дерево занимало меньше памяти.
+ * Рост веса сразу продвигает id в лучших списках на пути к ключу. Уменьшение веса или удаление ключа
+ * только помечает затронутые узлы устаревшими, и их списки пересчитываются из детей при следующем чтении.
+ * Изменения дерева должны выполняться исключительно, это обеспечивает владелец. Чтения top() могут идти
+ * параллельно друг с другом: пересчет устаревших узлов выполняется под собственной блокировкой дерева,
+ * а готовый список публикуется до снятия пометки.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class PrefixTrie {
+    int size;
+    IntToLongFunction weight;
+    Node root = new Node();
+    Object refreshLock = new Object();
+
+    public PrefixTrie(int size, IntToLongFunction weight) {
+        this.size = size;
+        this.weight = weight;
+    }
+
+    public void add(String key, int id) {
+        Node node = root;
+        offer(node, id);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i), true);
+            offer(node, id);
+        }
+        node.ids = SortedInts.insert(node.ids, id);
+    }
+
+    public void remove(String key, int id) {
+        Node[] path = path(key);
+        Node last = path[key.length()];
+        if (last == null) {
+            return;
+        }
+
+        last.ids = SortedInts.delete(last.ids, id);
+        for (Node node : path) {
+            invalidate(node, id);
+        }
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+    }
+
+    /*
+     * Вес id вырос: id продвигается в лучших списках узлов на пути к key.
+     */
+    public void raise(String key, int id) {
+        Node node = root;
+        offer(node, id);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i), false);
+            if (node != null) {
+                offer(node, id);
+            }
+        }
+    }
+
+    /*
+     * Вес id уменьшился: узлы, где id входит в лучший список, могут теперь иметь лучшего кандидата в поддереве.
+     */
+    public void lower(String key, int id) {
+        for (Node node : path(key)) {
+            if (node != null) {
+                invalidate(node, id);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        Deque<Node> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            Node node = nodes.pop();
+            node.dirty = true;
+            for (Node child : node.children) {
+                nodes.push(child);
+            }
+        }
+    }
+
+    public void clear() {
+        root.ids = SortedInts.EMPTY;
+        root.top = SortedInts.EMPTY;
+        root.keys = new char[0];
+        root.children = new Node[0];
+        root.dirty = false;
+    }
+
+    public int[] top(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i), false);
+        }
+        if (node == null) {
+            return SortedInts.EMPTY;
+        }
+        if (!node.dirty) {
+            return node.top;
+        }
+        synchronized (refreshLock) {
+            return refresh(node);
+        }
+    }
+
+    private Node[] path(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length() && path[i] != null; i++) {
+            path[i + 1] = path[i].child(key.charAt(i), false);
+        }
+        return path;
+    }
+
+    private void offer(Node node, int id) {
+        if (node.dirty) {
+            return;
+        }
+
+        int[] top = node.top;
+        int position = indexOf(top, id);
+        if (position < 0) {
+            if (top.length == size && compare(id, top[top.length - 1]) > 0) {
+                return;
+            }
+            top = Arrays.copyOf(top, Math.min(top.length + 1, size));
+            position = top.length - 1;
+        } else {
+            top = top.clone();
+        }
+
+        while (position > 0 && compare(id, top[position - 1]) < 0) {
+            top[position] = top[position - 1];
+            position--;
+        }
+        top[position] = id;
+        node.top = top;
+    }
+
+    private void invalidate(Node node, int id) {
+        if (!node.dirty && indexOf(node.top, id) >= 0) {
+            node.dirty = true;
+        }
+    }
+
+    private int[] refresh(Node node) {
+        if (!node.dirty) {
+            return node.top;
+        }
+
+        Set<Integer> candidates = new HashSet<>();
+        for (int id : node.ids) {
+            candidates.add(id);
+        }
+        for (Node child : node.children) {
+            for (int id : refresh(child)) {
+                candidates.add(id);
+            }
+        }
+
+        node.top = candidates.stream()
+                .sorted(this::compare)
+                .limit(size)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        node.dirty = false;
+        return node.top;
+    }
+
+    private int compare(int id, int other) {
+        int byWeight = Long.compare(weight.applyAsLong(other), weight.applyAsLong(id));
+        return byWeight != 0 ? byWeight : Integer.compare(id, other);
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        int[] ids = SortedInts.EMPTY;
+        volatile int[] top = SortedInts.EMPTY;
+        volatile boolean dirty;
+
+        Node child(char key, boolean create) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+            if (!create) {
+                return null;
+            }
+
+            position = -position - 1;
+            Node child = new Node();
+            keys = insert(keys, position, key);
+            children = insert(children, position, child);
+            return child;
+        }
+
+        void removeChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return ids.length == 0 && children.length == 0;
+        }
+
+        private static char[] insert(char[] values, int position, char value) {
+            char[] result = new char[values.length + 1];
+            System.arraycopy(values, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(values, position, result, position + 1, values.length - position);
+            return result;
+        }
+
+        private static Node[] insert(Node[] values, int position, Node value) {
+            Node[] result = new Node[values.length + 1];
+            System.arraycopy(values, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(values, position, result, position + 1, values.length - position);
+            return result;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Рейтинг отзывов по полезности в памяти: общий и по каждому фильму.
+ * Отзыв хранится в виде ключа, упорядочивающего по убыванию полезности, а при равенстве - по возрастанию id,
+ * поэтому первые N отзывов фильма читаются из начала отсортированного множества без сортировки таблицы.
+ * Рейтинг строится из таблицы reviews при первом чтении и заново после сброса (invalidate), пока он не построен,
+ * изменения отзывов игнорируются.
+ * Обновления принимают итоговую полезность, а не разницу, поэтому повторное применение безопасно.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ReviewRanking {
+    NavigableSet<Long> all = new TreeSet<>();
+    Map<Long, NavigableSet<Long>> byFilm = new HashMap<>();
+    Map<Integer, Long> keys = new HashMap<>();
+    Map<Integer, Long> films = new HashMap<>();
+    @NonFinal
+    boolean loaded;
+
+    /*
+     * Заполняет рейтинг, если он еще не построен. loader передает в приемник id отзыва, id фильма и полезность.
+     */
+    public synchronized void loadIfAbsent(Consumer<Consumer<long[]>> loader) {
+        if (loaded) {
+            return;
+        }
+        clear();
+        loader.accept(row -> add((int) row[0], row[1], (int) row[2]));
+        loaded = true;
+    }
+
+    public synchronized void put(int reviewId, long filmId, int useful) {
+        if (!loaded) {
+            return;
+        }
+        remove(reviewId);
+        add(reviewId, filmId, useful);
+    }
+
+    public synchronized void remove(int reviewId) {
+        Long key = keys.remove(reviewId);
+        if (key == null) {
+            return;
+        }
+        all.remove(key);
+        long filmId = films.remove(reviewId);
+        NavigableSet<Long> filmKeys = byFilm.get(filmId);
+        filmKeys.remove(key);
+        if (filmKeys.isEmpty()) {
+            byFilm.remove(filmId);
+        }
+    }
+
+    public synchronized void removeFilm(long filmId) {
+        NavigableSet<Long> filmKeys = byFilm.remove(filmId);
+        if (filmKeys == null) {
+            return;
+        }
+        for (long key : filmKeys) {
+            int reviewId = reviewId(key);
+            all.remove(key);
+            keys.remove(reviewId);
+            films.remove(reviewId);
+        }
+    }
+
+    /*
+     * Сбрасывает рейтинг; он будет построен заново при следующем чтении.
+     */
+    public synchronized void invalidate() {
+        clear();
+        loaded = false;
+    }
+
+    /*
+     * До count id самых полезных отзывов фильма filmId или всех фильмов, если filmId равен 0.
+     */
+    public synchronized List<Integer> getTop(long filmId, int count) {
+        NavigableSet<Long> source = filmId == 0 ? all : byFilm.getOrDefault(filmId, Collections.emptyNavigableSet());
+        List<Integer> reviewIds = new ArrayList<>(Math.min(Math.max(count, 0), source.size()));
+        Iterator<Long> iterator = source.iterator();
+        while (reviewIds.size() < count && iterator.hasNext()) {
+            reviewIds.add(reviewId(iterator.next()));
+        }
+        return reviewIds;
+    }
+
+    private void add(int reviewId, long filmId, int useful) {
+        long key = key(reviewId, useful);
+        all.add(key);
+        byFilm.computeIfAbsent(filmId, id -> new TreeSet<>()).add(key);
+        keys.put(reviewId, key);
+        films.put(reviewId, filmId);
+    }
+
+    private void clear() {
+        all.clear();
+        byFilm.clear();
+        keys.clear();
+        films.clear();
+    }
+
+    /*
+     * Старшие 32 бита - полезность с обратным знаком, младшие - id отзыва без знака.
+     */
+    private static long key(int reviewId, int useful) {
+        return (-(long) useful << 32) | (reviewId & 0xFFFFFFFFL);
+    }
+
+    private static int reviewId(long key) {
+        return (int) key;
+    }
+}
\ No newline at end of file
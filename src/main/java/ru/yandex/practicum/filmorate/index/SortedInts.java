@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Операции над отсортированными массивами int без повторов.
+ * Такие массивы используются как компактные множества id в индексах.
+ */
+public final class SortedInts {
+    public static final int[] EMPTY = new int[0];
+
+    private SortedInts() {
+    }
+
+    public static boolean contains(int[] values, int value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public static int[] insert(int[] values, int value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+        position = -position - 1;
+
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    public static int[] delete(int[] values, int value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return values;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, position);
+        System.arraycopy(values, position + 1, result, position, values.length - position - 1);
+        return result;
+    }
+
+    public static int intersectionSize(int[] first, int[] second) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    public static int[] intersection(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public static int[] union(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        if (first.length == 0) {
+            return second;
+        }
+
+        int[] result = new int[first.length + second.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length || j < second.length) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                result[count++] = first[i++];
+            } else if (i == first.length || first[i] > second[j]) {
+                result[count++] = second[j++];
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /*
+     * Отсортированный массив без повторов из произвольного набора значений.
+     */
+    public static int[] of(Collection<Integer> values) {
+        int[] result = new int[values.size()];
+        int count = 0;
+        for (int value : values) {
+            result[count++] = value;
+        }
+        Arrays.sort(result);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || result[unique - 1] != result[i]) {
+                result[unique++] = result[i];
+            }
+        }
+        return unique == result.length ? result : Arrays.copyOf(result, unique);
+    }
+
+    public static boolean isId(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    public static int toId(long id) {
+        if (!isId(id)) {
+            throw new IllegalArgumentException(String.format("Недопустимый id: %d", id));
+        }
+        return (int) id;
+    }
+}
\ No newline at end of file
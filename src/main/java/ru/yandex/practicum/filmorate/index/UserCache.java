@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Кэш пользователей по id. Отсутствующие id сюда не попадают: их отсекает множество id в UserDbStorage.
+ */
+@Component
+public class UserCache extends EntityCache<User> {
+    private static final long USER_WEIGHT = 160;
+
+    @Autowired
+    public UserCache(@Value("${filmorate.cache.users.max-size:100000}") int maxSize,
+                     @Value("${filmorate.cache.users.max-weight:67108864}") long maxWeight) {
+        super(maxSize, maxWeight, UserCache::weigh, UserCache::copy);
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getName(), user.getEmail(), user.getLogin(), user.getBirthday());
+        copy.getFriendIds().addAll(user.getFriendIds());
+        copy.getFilmLikes().addAll(user.getFilmLikes());
+        return copy;
+    }
+
+    private static long weigh(User user) {
+        return USER_WEIGHT + 2L * (length(user.getName()) + length(user.getEmail()) + length(user.getLogin()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class CacheStats {
+    int size; //записей в кэше
+    int maxSize;
+    long weight; //оценка занятой памяти в байтах
+    long maxWeight;
+    long hits;
+    long misses;
+    double hitRate; //доля попаданий среди всех обращений, 0 до первого обращения
+    long evictions; //вытеснено по размеру или весу
+    long invalidations; //удалено при изменении данных
+}
\ No newline at end of file
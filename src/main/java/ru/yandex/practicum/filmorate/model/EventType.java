@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public enum EventType {
+    LIKE(1),
+    FRIEND(2),
+    REVIEW(3);
+
+    int id;
+
+    EventType(int id) {
+        this.id = id;
+    }
+
+    public static EventType fromId(int id) {
+        for (EventType value : values()) {
+            if (value.id == id) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Неизвестный id: %d", id));
+    }
+}
\ No newline at end of file
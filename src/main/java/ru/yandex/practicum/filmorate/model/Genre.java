@@ -1,26 +1,28 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
-import lombok.experimental.NonFinal;
 
+/**
+ * Неизменяемая запись справочника жанров: GenreDaoImpl отдает всем вызывающим одни и те же экземпляры.
+ */
 @Builder
 @Getter
-@Setter
 @ToString
 @EqualsAndHashCode
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class Genre {
-    @NonFinal
     Integer id;
-    @NonFinal
     String name;
 
     public Genre(Integer id) {
-        this.id = id;
+        this(id, null);
     }
 
-    public Genre(Integer id, String name) {
+    @JsonCreator
+    public Genre(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
         this.id = id;
         this.name = name;
     }
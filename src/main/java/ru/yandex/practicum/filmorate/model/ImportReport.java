@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportReport {
+    long lines; //прочитано непустых строк
+    long imported; //сохранено фильмов
+    long failed; //строк с ошибками
+    long durationMs;
+    double filmsPerSecond;
+    List<LineError> errors = new ArrayList<>(); //ошибки по строкам, не больше filmorate.import.max-errors
+
+    @Data
+    @AllArgsConstructor
+    @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+    public static class LineError {
+        long line; //номер строки во входных данных, начиная с 1
+        String message;
+    }
+}
\ No newline at end of file
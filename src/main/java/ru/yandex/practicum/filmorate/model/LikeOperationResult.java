@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class LikeOperationResult {
+    int index; //номер операции в запросе
+    Long filmId;
+    Long userId;
+    String op;
+    Status status;
+    String message;
+
+    public enum Status {
+        APPLIED, //лайк добавлен или удален
+        UNCHANGED, //лайк уже был в нужном состоянии
+        DUPLICATE, //для той же пары фильм-пользователь в запросе есть более поздняя операция
+        NOT_FOUND, //фильм или пользователь отсутствует в базе
+        INVALID //не заполнены поля или неизвестная операция
+    }
+}
\ No newline at end of file
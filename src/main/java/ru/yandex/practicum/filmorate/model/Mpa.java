@@ -1,25 +1,28 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
-import lombok.experimental.NonFinal;
 
+/**
+ * Неизменяемая запись справочника MPA: MpaDaoImpl отдает всем вызывающим одни и те же экземпляры.
+ */
 @Getter
-@Setter
 @ToString
 @EqualsAndHashCode
 @Builder
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class Mpa {
     Integer id;
-    @NonFinal
     String name;
 
     public Mpa(Integer id) {
-        this.id = id;
+        this(id, null);
     }
 
-    public Mpa(Integer id, String name) {
+    @JsonCreator
+    public Mpa(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
         this.id = id;
         this.name = name;
     }
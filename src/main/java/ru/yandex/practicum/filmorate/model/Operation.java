@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public enum Operation {
+    ADD(1),
+    REMOVE(2),
+    UPDATE(3);
+
+    int id;
+
+    Operation(int id) {
+        this.id = id;
+    }
+
+    public static Operation fromId(int id) {
+        for (Operation value : values()) {
+            if (value.id == id) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Неизвестный id: %d", id));
+    }
+}
\ No newline at end of file
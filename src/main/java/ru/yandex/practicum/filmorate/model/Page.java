@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class Page<T> {
+    Collection<T> items;
+    Long nextCursor; //id последней записи страницы, если за ней есть еще записи, иначе null
+
+    /*
+     * Страница из выборки до limit + 1 записей: лишняя запись только показывает, что есть следующая страница.
+     */
+    public static <T> Page<T> of(List<T> rows, int limit, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, id.apply(items.get(limit - 1)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.index.FilmCache;
+import ru.yandex.practicum.filmorate.index.UserCache;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class CacheService {
+    FilmCache filmCache;
+    UserCache userCache;
+
+    @Autowired
+    public CacheService(FilmCache filmCache, UserCache userCache) {
+        this.filmCache = filmCache;
+        this.userCache = userCache;
+    }
+
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("films", filmCache.getStats());
+        stats.put("users", userCache.getStats());
+        return stats;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dao.ExportDao;
+import ru.yandex.practicum.filmorate.dao.ExportDaoImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка данных в NDJSON: каждая строка таблицы сериализуется и пишется в ответ сразу после чтения,
+ * поэтому расход памяти не зависит от размера таблицы.
+ */
+@Service
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ExportService {
+    ExportDao exportDao;
+    ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportService(ExportDaoImpl exportDaoImpl, ObjectMapper objectMapper) {
+        this.exportDao = exportDaoImpl;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        export(out, "фильмов", generator -> exportDao.exportFilms(film -> write(generator, film)));
+    }
+
+    public void exportUsers(OutputStream out) throws IOException {
+        export(out, "пользователей", generator -> exportDao.exportUsers(user -> write(generator, user)));
+    }
+
+    public void exportLikes(OutputStream out) throws IOException {
+        export(out, "лайков", generator -> exportDao.exportLikes((filmId, userId) -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("filmId", filmId);
+                generator.writeNumberField("userId", userId);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    public void exportFriends(OutputStream out) throws IOException {
+        export(out, "друзей", generator -> exportDao.exportFriends((userId, friendId) -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("userId", userId);
+                generator.writeNumberField("friendId", friendId);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    /*
+     * Ошибка записи в ответ (например, клиент закрыл соединение) прерывает чтение курсора.
+     */
+    private void export(OutputStream out, String name, Consumer<JsonGenerator> rows) throws IOException {
+        long start = System.currentTimeMillis();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(new BufferedOutputStream(out))) {
+            generator.setRootValueSeparator(null);
+            rows.accept(generator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info(String.format("Выгрузка %s завершена за %d мс.", name, System.currentTimeMillis() - start));
+    }
+
+    private void write(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
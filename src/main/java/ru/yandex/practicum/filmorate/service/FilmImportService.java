@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.dao.DirectorDao;
+import ru.yandex.practicum.filmorate.dao.GenreDao;
+import ru.yandex.practicum.filmorate.dao.GenreDaoImpl;
+import ru.yandex.practicum.filmorate.dao.MpaDao;
+import ru.yandex.practicum.filmorate.dao.MpaDaoImpl;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Потоковый импорт фильмов из NDJSON: одна строка - один фильм в формате POST /films.
+ * Строки разбираются по мере чтения, проверяются так же, как при создании фильма, а ссылки на рейтинг,
+ * жанры и режиссеров - по справочникам, загруженным один раз на импорт. Проверенные фильмы сохраняются
+ * пакетами по filmorate.import.chunk-size, каждый пакет - в своей транзакции.
+ */
+@Service
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FilmImportService {
+    FilmStorage filmStorage;
+    MpaDao mpaDao;
+    GenreDao genreDao;
+    DirectorDao directorDao;
+    ObjectMapper objectMapper;
+    Validator validator;
+    int chunkSize;
+    int maxErrors;
+
+    @Autowired
+    public FilmImportService(FilmDbStorage filmStorage, MpaDaoImpl mpaDaoImpl, GenreDaoImpl genreDaoImpl,
+                             DirectorDao directorDao, ObjectMapper objectMapper, Validator validator,
+                             @Value("${filmorate.import.chunk-size:1000}") int chunkSize,
+                             @Value("${filmorate.import.max-errors:1000}") int maxErrors) {
+        this.filmStorage = filmStorage;
+        this.mpaDao = mpaDaoImpl;
+        this.genreDao = genreDaoImpl;
+        this.directorDao = directorDao;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportReport importFilms(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+
+        Set<Integer> mpaIds = new HashSet<>();
+        for (Mpa mpa : mpaDao.getAllMpa()) {
+            mpaIds.add(mpa.getId());
+        }
+        Set<Integer> genreIds = new HashSet<>();
+        for (Genre genre : genreDao.getAllGenres()) {
+            genreIds.add(genre.getId());
+        }
+        Set<Long> directorIds = new HashSet<>();
+        for (Director director : directorDao.getAllDirectors()) {
+            directorIds.add(director.getId());
+        }
+
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        long lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setLines(report.getLines() + 1);
+
+            try {
+                Film film = objectMapper.readValue(line, Film.class);
+                validate(film, mpaIds, genreIds, directorIds);
+                chunk.add(film);
+                chunkLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                addError(report, lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+                continue;
+            } catch (Exception e) {
+                addError(report, lineNumber, e.getMessage());
+                continue;
+            }
+
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, chunkLines, report);
+            }
+        }
+        saveChunk(chunk, chunkLines, report);
+
+        report.setDurationMs((System.nanoTime() - start) / 1_000_000);
+        report.setFilmsPerSecond(report.getImported() * 1000.0 / Math.max(report.getDurationMs(), 1));
+        log.info(String.format("Импорт фильмов завершен: сохранено %d, ошибок %d, %d мс.",
+                report.getImported(), report.getFailed(), report.getDurationMs()));
+        return report;
+    }
+
+    private void validate(Film film, Set<Integer> mpaIds, Set<Integer> genreIds, Set<Long> directorIds)
+            throws Exception {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Film> violation = violations.iterator().next();
+            throw new ValidationException(String.format("Параметр %s: %s.", violation.getPropertyPath(),
+                    violation.getMessage()));
+        }
+        filmStorage.validateFilm(film);
+
+        if (film.getMpa() == null || !mpaIds.contains(film.getMpa().getId())) {
+            throw new ValidationException("Необходимо указать существующий рейтинг MPA (параметр mpa).");
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre == null || !genreIds.contains(genre.getId())) {
+                    throw new ValidationException(
+                            String.format("Жанр с id # %s отсутствует в базе.", genre == null ? null : genre.getId()));
+                }
+            }
+        }
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                if (director == null || !directorIds.contains(director.getId())) {
+                    throw new ValidationException(
+                            String.format("Режиссер с id # %s отсутствует в базе.",
+                                    director == null ? null : director.getId()));
+                }
+            }
+        }
+    }
+
+    private void saveChunk(List<Film> chunk, List<Long> chunkLines, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            filmStorage.importFilms(chunk);
+            report.setImported(report.getImported() + chunk.size());
+        } catch (DataAccessException e) {
+            log.warn("Пакет фильмов не сохранен.", e);
+            for (long lineNumber : chunkLines) {
+                addError(report, lineNumber, "Ошибка сохранения пакета: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void addError(ImportReport report, long lineNumber, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportReport.LineError(lineNumber, message));
+        }
+    }
+}
\ No newline at end of file
@@ -11,6 +11,10 @@ import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
@@ -42,6 +46,10 @@ public class FilmService {
         return filmStorage.findAllFilms();
     }
 
+    public Page<Film> findFilms(Long afterId, Integer limit) throws ValidationException {
+        return filmStorage.findFilms(afterId, limit);
+    }
+
     @PutMapping
     public Film updateFilm(@RequestBody Film film) throws Throwable {
         Film newFilm = filmStorage.updateFilm(film);
@@ -71,6 +79,12 @@ public class FilmService {
         filmStorage.removeLike(filmId, userId);
     }
 
+    public List<LikeOperationResult> applyLikes(List<LikeOperation> operations) throws ValidationException {
+        List<LikeOperationResult> results = filmStorage.applyLikes(operations);
+        log.info(String.format("Обработан пакет из %d операций с лайками.", operations.size()));
+        return results;
+    }
+
     public Collection<Film> getDirectorFilmsOrderByLikes(long directorId) {
         directorDao.getDirectorById(directorId);
         return filmStorage.getDirectorFilmsOrderByLikes(directorId);
@@ -89,9 +103,17 @@ public class FilmService {
         return filmStorage.getRecommendationsFilms(userId);
     }
 
+    public List<Film> getSimilarFilms(long filmId, int count) throws ValidationException {
+        return filmStorage.getSimilarFilms(filmId, count);
+    }
+
     @GetMapping
-    public List<Film> searchFilm(String query, String by) throws ValidationException {
-        return filmStorage.searchFilm(query, by);
+    public List<Film> searchFilm(String query, String by, boolean fuzzy) throws ValidationException {
+        return filmStorage.searchFilm(query, by, fuzzy);
+    }
+
+    public List<Suggestion> suggest(String prefix, int count) throws ValidationException {
+        return filmStorage.suggest(prefix, count);
     }
 
     public List<Film> getCommonFilms(long userId, long friendId) {
@@ -29,4 +29,9 @@ public class GenreService {
     public Genre getGenreById(int id) {
         return filmStorage.getGenreById(id);
     }
+
+    public Collection<Genre> refresh() {
+        filmStorage.refreshGenres();
+        return filmStorage.getAllGenres();
+    }
 }
\ No newline at end of file
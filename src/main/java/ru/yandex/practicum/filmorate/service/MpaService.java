@@ -32,4 +32,9 @@ public class MpaService {
     public Mpa getMpaById(int id) {
         return filmStorage.getMpaById(id);
     }
+
+    public Collection<Mpa> refresh() {
+        filmStorage.refreshMpa();
+        return filmStorage.getAllMpa();
+    }
 }
\ No newline at end of file
@@ -4,12 +4,17 @@ import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
@@ -23,11 +28,16 @@ import java.util.List;
 public class UserService {
     UserStorage userStorage;
     FilmService filmService;
+    FeedEventBus feedEventBus;
+    long feedStreamTimeoutMs;
 
     @Autowired
-    public UserService(UserDbStorage userDbStorage, FilmService filmService) {
+    public UserService(UserDbStorage userDbStorage, FilmService filmService, FeedEventBus feedEventBus,
+                       @Value("${filmorate.feed.stream.timeout-ms:1800000}") long feedStreamTimeoutMs) {
         this.userStorage = userDbStorage;
         this.filmService = filmService;
+        this.feedEventBus = feedEventBus;
+        this.feedStreamTimeoutMs = feedStreamTimeoutMs;
     }
 
     @PostMapping
@@ -49,6 +59,10 @@ public class UserService {
         return userStorage.findAllUsers();
     }
 
+    public Page<User> findUsers(Long afterId, Integer limit) throws ValidationException {
+        return userStorage.findUsers(afterId, limit);
+    }
+
     @GetMapping
     public User getUserById(long userId) throws DataNotFoundException {
         return userStorage.getUserById(userId);
@@ -59,6 +73,14 @@ public class UserService {
         return userStorage.getCommonFriends(userId, otherUserId);
     }
 
+    public List<User> getSuggestions(long userId, int count) throws DataNotFoundException {
+        return userStorage.getSuggestions(userId, count);
+    }
+
+    public int getDistance(long userId, long otherUserId) throws DataNotFoundException {
+        return userStorage.getDistance(userId, otherUserId);
+    }
+
     @PutMapping
     public void addFriend(long userId, long friendId) throws DataAlreadyExistException {
         userStorage.addFriend(userId, friendId);
@@ -75,8 +97,29 @@ public class UserService {
     }
 
     @GetMapping
-    public List<Feed> getFeeds(long userId) {
-        return userStorage.getFeeds(userId);
+    public Page<Feed> getFeeds(long userId, Long afterEventId, Integer limit) throws ValidationException {
+        return userStorage.getFeeds(userId, afterEventId, limit);
+    }
+
+    public List<Feed> getTimeline(long userId, Long beforeEventId, Integer limit) throws ValidationException {
+        return userStorage.getTimeline(userId, beforeEventId, limit);
+    }
+
+    public SseEmitter streamFeeds(long userId) {
+        validateUser(userId);
+
+        SseEmitter emitter = new SseEmitter(feedStreamTimeoutMs);
+        FeedEventBus.Subscription subscription = feedEventBus.subscribe(userId,
+                feed -> emitter.send(SseEmitter.event()
+                        .id(String.valueOf(feed.getEventId()))
+                        .name("feed")
+                        .data(feed)),
+                emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        log.info(String.format("Пользователь с id # %d подписан на ленту событий.", userId));
+        return emitter;
     }
 
     public void deleteUser(long id) {
@@ -88,8 +131,14 @@ public class UserService {
     }
 
     public List<Film> getCommonFilms(long userId, long friendId) {
-        userStorage.getUserById(userId);
-        userStorage.getUserById(friendId);
+        validateUser(userId);
+        validateUser(friendId);
         return filmService.getCommonFilms(userId, friendId);
     }
+
+    private void validateUser(long userId) {
+        if (!userStorage.containsUser(userId)) {
+            throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", userId));
+        }
+    }
 }
\ No newline at end of file
@@ -2,48 +2,136 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
-import lombok.experimental.NonFinal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.dao.*;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.FilmCache;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmRecommender;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.IdSet;
+import ru.yandex.practicum.filmorate.index.ItemSimilarityIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.ReviewRanking;
+import ru.yandex.practicum.filmorate.index.SortedInts;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDate;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class FilmDbStorage implements FilmStorage {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
     FilmDao filmDao;
     MpaDao mpaDao;
     GenreDao genreDao;
     FeedDao feedDao;
     UserStorage userStorage;
-    @NonFinal
-    int idCounter = 0;
+    FilmPopularityIndex popularityIndex;
+    LikeMatrix likeMatrix;
+    FilmRecommender recommender;
+    ItemSimilarityIndex similarityIndex;
+    FilmSearchIndex searchIndex;
+    ReviewRanking reviewRanking;
+    FilmCache filmCache;
+    int likesBatchMaxSize;
+    int maxPageLimit;
+    IdSet filmIds = new IdSet();
+    AtomicLong idCounter = new AtomicLong();
 
     @Autowired
     public FilmDbStorage(FilmDaoImpl filmDaoImpl, MpaDaoImpl mpaDaoImpl, GenreDaoImpl genreDaoImpl,
-                         FeedDaoImpl feedDaoImpl, UserDbStorage userDbStorage) {
+                         FeedDaoImpl feedDaoImpl, UserDbStorage userDbStorage,
+                         FilmPopularityIndex popularityIndex, LikeMatrix likeMatrix,
+                         FilmRecommender recommender, ItemSimilarityIndex similarityIndex,
+                         FilmSearchIndex searchIndex, ReviewRanking reviewRanking, FilmCache filmCache,
+                         @Value("${filmorate.likes.batch-max-size:10000}") int likesBatchMaxSize,
+                         @Value("${filmorate.pagination.max-limit:1000}") int maxPageLimit) {
         this.filmDao = filmDaoImpl;
         this.mpaDao = mpaDaoImpl;
         this.genreDao = genreDaoImpl;
         this.feedDao = feedDaoImpl;
         this.userStorage = userDbStorage;
+        this.popularityIndex = popularityIndex;
+        this.likeMatrix = likeMatrix;
+        this.recommender = recommender;
+        this.similarityIndex = similarityIndex;
+        this.searchIndex = searchIndex;
+        this.reviewRanking = reviewRanking;
+        this.filmCache = filmCache;
+        this.likesBatchMaxSize = likesBatchMaxSize;
+        this.maxPageLimit = maxPageLimit;
+    }
+
+    @PostConstruct
+    private void loadIndexes() {
+        filmIds.reset(filmDao.getFilmIds());
+
+        Map<Long, Integer> releaseYears = filmDao.getReleaseYears();
+        Map<Long, List<Integer>> genreIds = filmDao.getFilmGenreIds();
+        popularityIndex.clear();
+        filmDao.getLikeCounts().forEach((filmId, likes) -> popularityIndex.addFilm(filmId, releaseYears.get(filmId),
+                genreIds.getOrDefault(filmId, Collections.emptyList()), likes));
+        likeMatrix.rebuild(filmDao.getUsersLikes());
+        searchIndex.rebuildFilms(filmDao.getFilmNames());
     }
 
     @Override
     public Film createFilm(Film film) throws Exception {
         validateFilm(film);
-        film.setId(++idCounter);
-        return filmDao.createFilm(film);
+        film.setId(idCounter.incrementAndGet());
+        Film newFilm = filmDao.createFilm(film);
+        filmIds.add(newFilm.getId());
+        popularityIndex.addFilm(newFilm.getId(), newFilm.getReleaseDate().getYear(), getGenreIds(newFilm), 0);
+        searchIndex.putFilm(newFilm.getId(), newFilm.getName());
+        filmCache.put(newFilm.getId(), newFilm);
+        return newFilm;
+    }
+
+    /*
+     * Сохраняет уже проверенные фильмы одной транзакцией и добавляет их в индексы.
+     * Фильмы получают подряд идущие id из того же счетчика, что и createFilm.
+     * Если транзакция не удалась, выданные фильмам id не переиспользуются.
+     */
+    @Override
+    public void importFilms(List<Film> films) {
+        long id = idCounter.getAndAdd(films.size());
+        for (Film film : films) {
+            film.setId(++id);
+        }
+        filmDao.insertFilms(films);
+
+        Map<Long, String> titles = new HashMap<>();
+        Map<Long, List<Long>> directorIdsByFilm = new HashMap<>();
+        for (Film film : films) {
+            filmIds.add(film.getId());
+            popularityIndex.addFilm(film.getId(), film.getReleaseDate().getYear(),
+                    film.getGenres() == null ? Collections.emptyList() : getGenreIds(film), 0);
+            titles.put(film.getId(), film.getName());
+            if (film.getDirectors() != null) {
+                List<Long> directorIds = new ArrayList<>();
+                for (Director director : film.getDirectors()) {
+                    directorIds.add(director.getId());
+                }
+                directorIdsByFilm.put(film.getId(), directorIds);
+            }
+        }
+        searchIndex.putFilms(titles, directorIdsByFilm);
     }
 
     @Override
@@ -51,10 +139,28 @@ public class FilmDbStorage implements FilmStorage {
         return filmDao.findAllFilms();
     }
 
+    @Override
+    public Page<Film> findFilms(Long afterId, Integer limit) throws ValidationException {
+        if (afterId == null && limit == null) {
+            return new Page<>(filmDao.findAllFilms(), null);
+        }
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+        if (pageLimit <= 0 || pageLimit > maxPageLimit) {
+            throw new ValidationException(String.format("Параметр limit должен быть от 1 до %d.", maxPageLimit));
+        }
+        return Page.of(filmDao.getFilmsPage(afterId == null ? 0 : afterId, pageLimit + 1), pageLimit, Film::getId);
+    }
+
     @Override
     public Film updateFilm(Film film) throws Exception {
         validateFilm(film);
-        return filmDao.updateFilm(film);
+        filmCache.invalidate(film.getId());
+        Film updatedFilm = filmDao.updateFilm(film);
+        popularityIndex.updateFilm(updatedFilm.getId(), updatedFilm.getReleaseDate().getYear(),
+                getGenreIds(updatedFilm));
+        searchIndex.putFilm(updatedFilm.getId(), updatedFilm.getName());
+        filmCache.put(updatedFilm.getId(), updatedFilm);
+        return updatedFilm;
     }
 
     @Override
@@ -64,7 +170,18 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Film getFilmById(long filmId) {
-        return filmDao.getFilmById(filmId);
+        long stamp = filmCache.stamp();
+        Film film = filmCache.get(filmId);
+        if (film == null) {
+            film = filmDao.getFilmById(filmId);
+            filmCache.putIfUnchanged(filmId, film, stamp);
+        }
+        return film;
+    }
+
+    @Override
+    public boolean containsFilm(long filmId) {
+        return filmIds.contains(filmId);
     }
 
     @Override
@@ -87,31 +204,138 @@ public class FilmDbStorage implements FilmStorage {
         return genreDao.getGenreById(id);
     }
 
+    /*
+     * Перечитывает справочник после изменения таблицы mpa; закэшированные фильмы несут старые названия.
+     */
+    @Override
+    public void refreshMpa() {
+        mpaDao.refresh();
+        filmCache.clear();
+    }
+
+    @Override
+    public void refreshGenres() {
+        genreDao.refresh();
+        filmCache.clear();
+    }
+
     @Override
     public void addLike(long filmId, long userId) throws DataAlreadyExistException {
         validateFilmAndUser(filmId, userId);
-        filmDao.addLike(filmId, userId);
+        if (filmDao.addLike(filmId, userId)) {
+            popularityIndex.changeLikes(filmId, 1);
+        }
+        likeMatrix.add(userId, filmId);
         feedDao.addLike(filmId, userId);
     }
 
     @Override
     public List<Film> getPopular(long count) {
-        return filmDao.getPopular(count);
+        return getFilmsByIds(popularityIndex.getTop(count));
     }
 
     @Override
     public void removeLike(long filmId, long userId) throws DataAlreadyExistException {
         validateFilmAndUser(filmId, userId);
-        filmDao.removeLike(filmId, userId);
+        if (filmDao.removeLike(filmId, userId)) {
+            popularityIndex.changeLikes(filmId, -1);
+        }
+        likeMatrix.remove(userId, filmId);
         feedDao.removeLike(filmId, userId);
     }
 
+    /*
+     * Операции проверяются по множествам id в памяти. Для одной пары фильм-пользователь действует
+     * последняя операция запроса. Применена операция или нет, решает БД внутри транзакции пакета,
+     * поэтому одновременные одиночные лайки не искажают результат. Индексы и события ленты обновляются
+     * только для изменивших строку операций и уже после фиксации. События пишутся в очередь FeedWriter,
+     * а не в транзакцию пакета: event_id и порядок событий назначает очередь писателя для всех источников.
+     */
+    @Override
+    public List<LikeOperationResult> applyLikes(List<LikeOperation> operations) throws ValidationException {
+        if (operations.size() > likesBatchMaxSize) {
+            throw new ValidationException(String.format("В одном запросе допускается не более %d операций.",
+                    likesBatchMaxSize));
+        }
+
+        LikeOperationResult[] results = new LikeOperationResult[operations.size()];
+        Map<Long, Integer> lastByPair = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (operation == null || operation.getFilmId() == null || operation.getUserId() == null
+                    || !(Operation.ADD.name().equals(operation.getOp())
+                    || Operation.REMOVE.name().equals(operation.getOp()))) {
+                results[i] = likeResult(i, operation, LikeOperationResult.Status.INVALID,
+                        "Необходимо указать filmId, userId и op (ADD или REMOVE).");
+            } else if (!containsFilm(operation.getFilmId())) {
+                results[i] = likeResult(i, operation, LikeOperationResult.Status.NOT_FOUND,
+                        String.format("Фильм с id # %d отсутствует в базе.", operation.getFilmId()));
+            } else if (!userStorage.containsUser(operation.getUserId())) {
+                results[i] = likeResult(i, operation, LikeOperationResult.Status.NOT_FOUND,
+                        String.format("Пользователь с id # %d отсутствует в базе.", operation.getUserId()));
+            } else {
+                long pair = (operation.getFilmId() << 32) | operation.getUserId();
+                Integer previous = lastByPair.put(pair, i);
+                if (previous != null) {
+                    results[previous] = likeResult(previous, operations.get(previous),
+                            LikeOperationResult.Status.DUPLICATE, null);
+                }
+            }
+        }
+
+        List<Integer> indexes = new ArrayList<>(lastByPair.values());
+        List<LikeOperation> saved = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            saved.add(operations.get(i));
+        }
+        boolean[] changed = saved.isEmpty() ? new boolean[0] : filmDao.saveLikes(saved);
+        for (int j = 0; j < changed.length; j++) {
+            int i = indexes.get(j);
+            LikeOperation like = saved.get(j);
+            if (!changed[j]) {
+                results[i] = likeResult(i, like, LikeOperationResult.Status.UNCHANGED, null);
+                continue;
+            }
+            results[i] = likeResult(i, like, LikeOperationResult.Status.APPLIED, null);
+            if (Operation.ADD.name().equals(like.getOp())) {
+                popularityIndex.changeLikes(like.getFilmId(), 1);
+                likeMatrix.add(like.getUserId(), like.getFilmId());
+                feedDao.addLike(like.getFilmId(), like.getUserId());
+            } else {
+                popularityIndex.changeLikes(like.getFilmId(), -1);
+                likeMatrix.remove(like.getUserId(), like.getFilmId());
+                feedDao.removeLike(like.getFilmId(), like.getUserId());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
     @Override
     public List<Film> getRecommendationsFilms(long userId) {
-        return filmDao.getRecommendations(userId);
+        return getFilmsByIds(recommender.recommend(userId));
+    }
+
+    @Override
+    public List<Film> getSimilarFilms(long filmId, int count) throws ValidationException {
+        if (count <= 0) {
+            throw new ValidationException("Параметр count должен быть положительным.");
+        }
+        if (!containsFilm(filmId)) {
+            throw new DataNotFoundException(String.format("Фильм с id # %d отсутствует в базе.", filmId));
+        }
+
+        List<Long> similarFilmIds = new ArrayList<>();
+        for (int similarFilmId : similarityIndex.getModel().getNeighbours(filmId)) {
+            if (similarFilmIds.size() == count) {
+                break;
+            }
+            similarFilmIds.add((long) similarFilmId);
+        }
+        return getFilmsByIds(similarFilmIds);
     }
 
-    private void validateFilm(Film film) throws Exception {
+    @Override
+    public void validateFilm(Film film) throws Exception {
         if (!(film.getDescription().length() <= 200)) {
             throw new ValidationException("Необходимо добавить описание фильма (параметр description: до 200 символов.");
         }
@@ -125,12 +349,32 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    private List<Integer> getGenreIds(Film film) {
+        List<Integer> genreIds = new ArrayList<>();
+        for (Genre genre : film.getGenres()) {
+            genreIds.add(genre.getId());
+        }
+        return genreIds;
+    }
+
+    private LikeOperationResult likeResult(int index, LikeOperation operation, LikeOperationResult.Status status,
+                                           String message) {
+        return LikeOperationResult.builder()
+                .index(index)
+                .filmId(operation == null ? null : operation.getFilmId())
+                .userId(operation == null ? null : operation.getUserId())
+                .op(operation == null ? null : operation.getOp())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
     private void validateFilmAndUser(long filmId, long userId) throws DataNotFoundException {
-        if (!getFilms().containsKey(filmId)) {
+        if (!containsFilm(filmId)) {
             throw new DataNotFoundException(String.format("Фильм с id # %d отсутствует в базе.", filmId));
         }
 
-        if (!userStorage.getUsers().containsKey(userId)) {
+        if (!userStorage.containsUser(userId)) {
             throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", userId));
         }
     }
@@ -148,23 +392,87 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public void deleteFilm(long id) {
         filmDao.deleteFilm(id);
+        filmCache.invalidate(id);
+        filmIds.remove(id);
+        popularityIndex.removeFilm(id);
+        likeMatrix.removeFilm(id);
+        searchIndex.removeFilm(id);
+        reviewRanking.removeFilm(id);
     }
 
     @Override
     public void deleteAll() {
-        idCounter = 0;
+        idCounter.set(0);
         filmDao.deleteAll();
+        filmCache.clear();
+        filmIds.clear();
+        popularityIndex.clear();
+        likeMatrix.clear();
+        searchIndex.clearFilms();
+        reviewRanking.invalidate();
     }
 
     @Override
     public List<Film> searchFilm(String query, String by) throws ValidationException {
+        return searchFilm(query, by, false);
+    }
+
+    @Override
+    public List<Film> searchFilm(String query, String by, boolean fuzzy) throws ValidationException {
         validateSearch(query, by);
-        return filmDao.searchFilm(query, by);
+        return getFilmsByIds(searchIndex.search(query, by.contains("title"), by.contains("director"),
+                fuzzy));
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int count) throws ValidationException {
+        if (prefix.isBlank()) {
+            throw new ValidationException("Поиск по пробелам не осуществляется.");
+        }
+        return searchIndex.suggest(prefix, count);
     }
 
     @Override
     public List<Film> getCommonFilms(long userId, long friendId) {
-        return filmDao.getCommonFilms(userId, friendId);
+        int[] commonFilmIds = SortedInts.intersection(likeMatrix.getUserLikes(userId),
+                likeMatrix.getUserLikes(friendId));
+
+        List<Long> filmIds = new ArrayList<>();
+        for (int filmId : commonFilmIds) {
+            filmIds.add((long) filmId);
+        }
+        filmIds.sort(Comparator.comparing(popularityIndex::getLikes, Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+        return getFilmsByIds(filmIds);
+    }
+
+    /*
+     * Фильмы по списку id в том же порядке: найденные в кэше берутся из него, остальные читаются из БД одним запросом.
+     */
+    private List<Film> getFilmsByIds(List<Long> ids) {
+        long stamp = filmCache.stamp();
+        Map<Long, Film> filmsById = filmCache.getAll(ids);
+        if (filmsById.size() < ids.size()) {
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : ids) {
+                if (!filmsById.containsKey(id)) {
+                    missingIds.add(id);
+                }
+            }
+            for (Film film : filmDao.getFilmsByIds(missingIds)) {
+                filmsById.put(film.getId(), film);
+                filmCache.putIfUnchanged(film.getId(), film, stamp);
+            }
+        }
+
+        List<Film> films = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
     }
 
     private void validateSearch(String query, String by) throws ValidationException {
@@ -183,6 +491,6 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public List<Film> getAllPopularFilmsOrderByLikes(long count, Integer genreId, Integer year) {
-        return filmDao.getAllPopularFilmsOrderByLikes(count, genreId, year);
+        return getFilmsByIds(popularityIndex.getTop(count, genreId, year));
     }
 }
\ No newline at end of file
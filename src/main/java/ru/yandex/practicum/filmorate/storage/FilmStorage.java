@@ -4,7 +4,11 @@ import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 
 import java.util.Collection;
 import java.util.List;
@@ -14,28 +18,42 @@ public interface FilmStorage {
 
     Collection<Film> findAllFilms();
 
+    Page<Film> findFilms(Long afterId, Integer limit) throws ValidationException;
+
     Film createFilm(Film film) throws Exception;
 
     Film updateFilm(Film film) throws Exception;
 
+    void validateFilm(Film film) throws Exception;
+
+    void importFilms(List<Film> films);
+
     Map<Long, Film> getFilms();
 
     Film getFilmById(long filmId);
 
+    boolean containsFilm(long filmId);
+
     Collection<Mpa> getAllMpa();
 
     Mpa getMpaById(int id);
 
+    void refreshMpa();
+
     void addLike(long filmId, long userId) throws DataAlreadyExistException;
 
     List<Film> getPopular(long count);
 
     void removeLike(long filmId, long userId) throws DataAlreadyExistException;
 
+    List<LikeOperationResult> applyLikes(List<LikeOperation> operations) throws ValidationException;
+
     Collection<Genre> getAllGenres();
 
     Genre getGenreById(int id);
 
+    void refreshGenres();
+
     Collection<Film> getDirectorFilmsOrderByLikes(long directorId);
 
     Collection<Film> getDirectorFilmsOrderByYear(long directorId);
@@ -46,8 +64,14 @@ public interface FilmStorage {
 
     List<Film> getRecommendationsFilms(long userId);
 
+    List<Film> getSimilarFilms(long filmId, int count) throws ValidationException;
+
     List<Film> searchFilm(String query, String by) throws ValidationException;
 
+    List<Film> searchFilm(String query, String by, boolean fuzzy) throws ValidationException;
+
+    List<Suggestion> suggest(String prefix, int count) throws ValidationException;
+
     List<Film> getCommonFilms(long userId, long friendId);
 
     List<Film> getAllPopularFilmsOrderByLikes(long count, Integer genreId, Integer year);
@@ -2,8 +2,8 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
-import lombok.experimental.NonFinal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.dao.FeedDao;
 import ru.yandex.practicum.filmorate.dao.FeedDaoImpl;
@@ -11,40 +11,88 @@ import ru.yandex.practicum.filmorate.dao.UserDao;
 import ru.yandex.practicum.filmorate.dao.UserDaoImpl;
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
 import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.exception.SearchLimitExceededException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.ActivityTimeline;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.FriendNetwork;
+import ru.yandex.practicum.filmorate.index.IdSet;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.ReviewRanking;
+import ru.yandex.practicum.filmorate.index.UserCache;
 import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class UserDbStorage implements UserStorage {
+    private static final int DEFAULT_TIMELINE_LIMIT = 20;
+    private static final int DEFAULT_PAGE_LIMIT = 100;
     UserDao userDao;
     FeedDao feedDao;
-    @NonFinal
-    int idCounter = 0;
+    FilmPopularityIndex popularityIndex;
+    LikeMatrix likeMatrix;
+    FriendGraph friendGraph;
+    FriendNetwork friendNetwork;
+    ActivityTimeline timeline;
+    ReviewRanking reviewRanking;
+    UserCache userCache;
+    int maxPageLimit;
+    IdSet userIds = new IdSet();
+    AtomicLong idCounter = new AtomicLong();
 
     @Autowired
-    public UserDbStorage(UserDaoImpl userDaoImpl, FeedDaoImpl feedDaoImpl) {
+    public UserDbStorage(UserDaoImpl userDaoImpl, FeedDaoImpl feedDaoImpl, FilmPopularityIndex popularityIndex,
+                         LikeMatrix likeMatrix, FriendGraph friendGraph, FriendNetwork friendNetwork,
+                         ActivityTimeline timeline, ReviewRanking reviewRanking, UserCache userCache,
+                         @Value("${filmorate.pagination.max-limit:1000}") int maxPageLimit) {
         this.userDao = userDaoImpl;
         this.feedDao = feedDaoImpl;
+        this.popularityIndex = popularityIndex;
+        this.likeMatrix = likeMatrix;
+        this.friendGraph = friendGraph;
+        this.friendNetwork = friendNetwork;
+        this.timeline = timeline;
+        this.reviewRanking = reviewRanking;
+        this.userCache = userCache;
+        this.maxPageLimit = maxPageLimit;
+    }
+
+    @PostConstruct
+    private void loadIndexes() {
+        userIds.reset(userDao.getUserIds());
+        friendGraph.rebuild(userDao.getFriendIds());
+        timeline.clear();
+        feedDao.forEachEvent(timeline::addEvent);
     }
 
     @Override
     public User createUser(User user) throws Exception {
         validateUser(user);
-        user.setId(++idCounter);
-        return userDao.createUser(user);
+        user.setId(idCounter.incrementAndGet());
+        User newUser = userDao.createUser(user);
+        userCache.put(newUser.getId(), newUser);
+        userIds.add(newUser.getId());
+        return newUser;
     }
 
     @Override
     public User updateUser(User user) throws Exception {
         validateUser(user);
-        return userDao.updateUser(user);
+        userCache.invalidate(user.getId());
+        User updatedUser = userDao.updateUser(user);
+        userCache.put(updatedUser.getId(), updatedUser);
+        return updatedUser;
     }
 
     @Override
@@ -52,9 +100,35 @@ public class UserDbStorage implements UserStorage {
         return userDao.findAllUsers();
     }
 
+    @Override
+    public Page<User> findUsers(Long afterId, Integer limit) throws ValidationException {
+        if (afterId == null && limit == null) {
+            return new Page<>(userDao.findAllUsers(), null);
+        }
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+        if (pageLimit <= 0 || pageLimit > maxPageLimit) {
+            throw new ValidationException(String.format("Параметр limit должен быть от 1 до %d.", maxPageLimit));
+        }
+        return Page.of(userDao.getUsersPage(afterId == null ? 0 : afterId, pageLimit + 1), pageLimit, User::getId);
+    }
+
     @Override
     public User getUserById(long userId) {
-        return userDao.getUserById(userId);
+        if (!userIds.contains(userId)) {
+            throw new DataNotFoundException(String.format("Пользователь с id #%d отсутствует в базе.", userId));
+        }
+        long stamp = userCache.stamp();
+        User user = userCache.get(userId);
+        if (user == null) {
+            user = userDao.getUserById(userId);
+            userCache.putIfUnchanged(userId, user, stamp);
+        }
+        return user;
+    }
+
+    @Override
+    public boolean containsUser(long userId) {
+        return userIds.contains(userId);
     }
 
     @Override
@@ -65,19 +139,43 @@ public class UserDbStorage implements UserStorage {
     @Override
     public List<User> getCommonFriends(long userId, long otherUserId) throws DataNotFoundException {
         validateFriends(userId, otherUserId);
-        return userDao.getCommonFriends(userId, otherUserId);
+
+        List<Long> commonFriendIds = new ArrayList<>();
+        for (int friendId : friendGraph.getCommonFriends(userId, otherUserId)) {
+            commonFriendIds.add((long) friendId);
+        }
+        return getUsersByIds(commonFriendIds);
+    }
+
+    @Override
+    public List<User> getSuggestions(long userId, int count) throws DataNotFoundException {
+        validateUser(userId);
+        return getUsersByIds(friendNetwork.getSuggestions(userId, count));
+    }
+
+    @Override
+    public int getDistance(long userId, long otherUserId) throws DataNotFoundException {
+        validateFriends(userId, otherUserId);
+        int distance = friendNetwork.getDistance(userId, otherUserId);
+        if (distance == FriendNetwork.UNKNOWN) {
+            throw new SearchLimitExceededException(String.format("Расстояние между пользователями с id # %d и # %d " +
+                    "не определено: поиск превысил лимит filmorate.friends.distance-budget.", userId, otherUserId));
+        }
+        return distance;
     }
 
     @Override
     public void addFriend(long userId, long friendId) throws DataAlreadyExistException {
         validateFriends(userId, friendId);
         userDao.addFriend(userId, friendId);
+        friendGraph.addFriend(userId, friendId);
+        timeline.addFriend(userId, friendId);
         feedDao.addFriend(userId, friendId);
     }
 
     @Override
     public List<User> getFriends(long id) {
-        if (!getUsers().containsKey(id)) {
+        if (!containsUser(id)) {
             throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", id));
         }
         return userDao.getFriends(id);
@@ -87,24 +185,99 @@ public class UserDbStorage implements UserStorage {
     public void removeFriend(long userId, long friendId) throws DataAlreadyExistException {
         validateFriends(userId, friendId);
         userDao.removeFriend(userId, friendId);
+        friendGraph.removeFriend(userId, friendId);
+        timeline.removeFriend(userId, friendId);
         feedDao.removeFriend(userId, friendId);
     }
 
     @Override
     public List<Feed> getFeeds(long userId) {
-        User user = userDao.getUserById(userId);
-        return feedDao.getFeeds(user.getId());
+        validateUser(userId);
+        return feedDao.getFeeds(userId);
+    }
+
+    @Override
+    public Page<Feed> getFeeds(long userId, Long afterEventId, Integer limit) throws ValidationException {
+        validateUser(userId);
+        if (afterEventId == null && limit == null) {
+            return new Page<>(feedDao.getFeeds(userId), null);
+        }
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+        if (pageLimit <= 0 || pageLimit > maxPageLimit) {
+            throw new ValidationException(String.format("Параметр limit должен быть от 1 до %d.", maxPageLimit));
+        }
+        return Page.of(feedDao.getFeeds(userId, afterEventId == null ? 0 : afterEventId, pageLimit + 1), pageLimit,
+                Feed::getEventId);
+    }
+
+    @Override
+    public List<Feed> getTimeline(long userId, Long beforeEventId, Integer limit) throws ValidationException {
+        validateUser(userId);
+        int pageLimit = limit == null ? DEFAULT_TIMELINE_LIMIT : limit;
+        if (pageLimit <= 0 || pageLimit > maxPageLimit) {
+            throw new ValidationException(String.format("Параметр limit должен быть от 1 до %d.", maxPageLimit));
+        }
+        feedDao.awaitPublished(friendGraph.getFriends(userId)); //события друзей сразу видны в ленте активности
+        return feedDao.getFeedsByIds(timeline.getTimeline(userId,
+                beforeEventId == null ? Long.MAX_VALUE : beforeEventId, pageLimit));
     }
 
     @Override
     public void deleteUser(long id) {
+        feedDao.discardPending(id);
         userDao.deleteUser(id);
+        userCache.invalidate(id);
+        userIds.remove(id);
+        friendGraph.removeUser(id);
+        timeline.removeUser(id);
+        reviewRanking.invalidate(); //отзывы пользователя удалены каскадно
+
+        for (int filmId : likeMatrix.removeUser(id)) {
+            popularityIndex.changeLikes(filmId, -1);
+        }
     }
 
     @Override
     public void deleteAll() {
-        idCounter = 0;
+        idCounter.set(0);
+        feedDao.discardPending();
         userDao.deleteAll();
+        userCache.clear();
+        userIds.clear();
+        popularityIndex.resetLikes();
+        likeMatrix.clear();
+        friendGraph.clear();
+        timeline.clear();
+        reviewRanking.invalidate();
+    }
+
+    /*
+     * Пользователи по списку id в том же порядке: найденные в кэше берутся из него, остальные читаются из БД.
+     */
+    private List<User> getUsersByIds(List<Long> ids) {
+        long stamp = userCache.stamp();
+        Map<Long, User> usersById = userCache.getAll(ids);
+        if (usersById.size() < ids.size()) {
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : ids) {
+                if (!usersById.containsKey(id)) {
+                    missingIds.add(id);
+                }
+            }
+            for (User user : userDao.getUsersByIds(missingIds)) {
+                usersById.put(user.getId(), user);
+                userCache.putIfUnchanged(user.getId(), user, stamp);
+            }
+        }
+
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
     }
 
     private void validateUser(User user) throws Exception {
@@ -116,12 +289,18 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
-    private void validateFriends(long userId, long friendId) throws DataNotFoundException {
-        if (!getUsers().containsKey(userId)) {
+    private void validateUser(long userId) throws DataNotFoundException {
+        if (!containsUser(userId)) {
             throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", userId));
         }
-        if (!getUsers().containsKey(friendId)) {
+    }
+
+    private void validateFriends(long userId, long friendId) throws DataNotFoundException {
+        if (!containsUser(userId)) {
             throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", userId));
         }
+        if (!containsUser(friendId)) {
+            throw new DataNotFoundException(String.format("Пользователь с id # %d отсутствует в базе.", friendId));
+        }
     }
 }
\ No newline at end of file
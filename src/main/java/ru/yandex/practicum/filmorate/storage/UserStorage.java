@@ -1,7 +1,9 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.exception.DataAlreadyExistException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
@@ -16,8 +18,12 @@ public interface UserStorage {
 
     Collection<User> findAllUsers();
 
+    Page<User> findUsers(Long afterId, Integer limit) throws ValidationException;
+
     User getUserById(long userId);
 
+    boolean containsUser(long userId);
+
     Map<Long, User> getUsers();
 
     void addFriend(long userId, long friendId) throws DataAlreadyExistException;
@@ -26,6 +32,10 @@ public interface UserStorage {
 
     List<User> getCommonFriends(long userId, long otherUserId);
 
+    List<User> getSuggestions(long userId, int count);
+
+    int getDistance(long userId, long otherUserId);
+
     void removeFriend(long userId, long friendId) throws DataAlreadyExistException;
 
     void deleteUser(long id);
@@ -33,4 +43,8 @@ public interface UserStorage {
     void deleteAll();
 
     List<Feed> getFeeds(long userId);
+
+    Page<Feed> getFeeds(long userId, Long afterEventId, Integer limit) throws ValidationException;
+
+    List<Feed> getTimeline(long userId, Long beforeEventId, Integer limit) throws ValidationException;
 }
\ No newline at end of file
@@ -49,7 +49,8 @@
   CREATE TABLE IF NOT EXISTS likes (
       id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
       film_id integer NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
-      user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE
+      user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+      CONSTRAINT "likes_film_user" UNIQUE (film_id, user_id)
   );
 
   CREATE TABLE IF NOT EXISTS friends (
@@ -63,14 +64,15 @@
         film_id integer NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
         user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
         content varchar(500) NOT NULL,
-        useful int,
+        useful int NOT NULL DEFAULT 0,
         isPositive boolean NOT NULL
     );
 
    CREATE TABLE IF NOT EXISTS review_likes (
             review_id integer NOT NULL REFERENCES reviews (review_id) ON DELETE CASCADE,
             user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
-            isUseful int NOT NULL
+            isUseful int NOT NULL,
+            PRIMARY KEY (review_id, user_id)
    );
 
 CREATE TABLE IF NOT EXISTS events_types (
@@ -90,4 +92,8 @@ CREATE TABLE IF NOT EXISTS feeds (
     operation integer NOT NULL REFERENCES operations (operation_id),
     user_id integer NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
     entity_id integer NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS films_genres_film ON films_genres (film_id);
+CREATE INDEX IF NOT EXISTS film_directors_film ON film_directors (film_id);
+CREATE INDEX IF NOT EXISTS feeds_user_event ON feeds (user_id, event_id);
\ No newline at end of file
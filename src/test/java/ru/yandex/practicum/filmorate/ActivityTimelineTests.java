@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+import ru.yandex.practicum.filmorate.index.ActivityTimeline;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Лента друзей сверяется с перебором всех событий текущих друзей. Авторы 1 и 2 читаются при чтении
+ * (подписчиков больше fan-out-limit), остальные рассылаются при записи.
+ */
+public class ActivityTimelineTests {
+    private static final int USERS = 12;
+    private static final int FAN_OUT_LIMIT = 2;
+
+    @Test
+    public void timelineMatchesEventsOfCurrentFriends() {
+        FriendGraph friendGraph = new FriendGraph();
+        ActivityTimeline timeline = new ActivityTimeline(friendGraph, new FeedEventBus(16, 1), 1000, FAN_OUT_LIMIT);
+        Map<Long, Long> authors = new HashMap<>();
+        Random random = new Random(18);
+
+        for (long userId = 3; userId <= USERS; userId++) {
+            addFriend(friendGraph, timeline, userId, 1);
+            addFriend(friendGraph, timeline, userId, 2);
+        }
+        for (long eventId = 1; eventId <= 600; eventId++) {
+            long userId = 1 + random.nextInt(USERS);
+            long friendId = 3 + random.nextInt(USERS - 2);
+            int action = random.nextInt(10);
+            if (action == 0 && userId != friendId) {
+                friendGraph.removeFriend(userId, friendId);
+                timeline.removeFriend(userId, friendId);
+            } else if (action == 1 && userId != friendId && friendGraph.getFollowers(friendId).length < FAN_OUT_LIMIT) {
+                addFriend(friendGraph, timeline, userId, friendId);
+            }
+            authors.put(eventId, userId);
+            timeline.addEvent(eventId, userId);
+
+            if (eventId % 50 == 0) {
+                for (long reader = 1; reader <= USERS; reader++) {
+                    long beforeId = random.nextBoolean() ? Long.MAX_VALUE : 1 + random.nextInt((int) eventId);
+                    int limit = 1 + random.nextInt(30);
+                    assertEquals(expectedTimeline(friendGraph, authors, reader, beforeId, limit),
+                            timeline.getTimeline(reader, beforeId, limit), "reader " + reader + ", event " + eventId);
+                }
+            }
+        }
+    }
+
+    private static void addFriend(FriendGraph friendGraph, ActivityTimeline timeline, long userId, long friendId) {
+        friendGraph.addFriend(userId, friendId);
+        timeline.addFriend(userId, friendId);
+    }
+
+    private static List<Long> expectedTimeline(FriendGraph friendGraph, Map<Long, Long> authors, long userId,
+                                               long beforeId, int limit) {
+        Set<Long> friends = new HashSet<>();
+        for (int friend : friendGraph.getFriends(userId)) {
+            friends.add((long) friend);
+        }
+        List<Long> timeline = new ArrayList<>();
+        for (long eventId = Math.min(beforeId - 1, authors.size()); eventId > 0 && timeline.size() < limit; eventId--) {
+            if (friends.contains(authors.get(eventId))) {
+                timeline.add(eventId);
+            }
+        }
+        return timeline;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.EntityCache;
+import ru.yandex.practicum.filmorate.index.FilmCache;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityCacheTests {
+
+    @Test
+    public void valueReadBeforeInvalidationIsRejected() {
+        EntityCache<String> cache = new EntityCache<>(10, 1000, String::length, UnaryOperator.identity());
+
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.putIfUnchanged(1, "stale", stamp);
+        assertNull(cache.get(1));
+
+        stamp = cache.stamp();
+        cache.put(2, "written");
+        cache.putIfUnchanged(1, "stale", stamp);
+        assertNull(cache.get(1));
+
+        stamp = cache.stamp();
+        cache.putIfUnchanged(1, "fresh", stamp);
+        assertEquals("fresh", cache.get(1));
+        assertEquals("written", cache.get(2));
+    }
+
+    @Test
+    public void weightLimitEvictsLeastRecentlyRead() {
+        EntityCache<String> cache = new EntityCache<>(100, 10, String::length, UnaryOperator.identity());
+        cache.put(1, "aaaa");
+        cache.put(2, "bbbb");
+        cache.get(1);
+        cache.put(3, "cccc"); //12 > 10: вытесняется давно не читавшаяся запись 2
+
+        assertEquals(Map.of(1L, "aaaa", 3L, "cccc"), cache.getAll(List.of(1L, 2L, 3L)));
+        assertEquals(8, cache.getStats().getWeight());
+        assertEquals(1, cache.getStats().getEvictions());
+
+        cache.put(4, "dddddddddddd"); //тяжелее всего кэша - не кладется и ничего не вытесняет
+        assertNull(cache.get(4));
+        assertEquals(2, cache.getStats().getSize());
+
+        cache.put(1, "aaaaaaaaa"); //замена записи пересчитывает вес
+        assertEquals(Map.of(1L, "aaaaaaaaa"), cache.getAll(List.of(1L, 3L)));
+        assertEquals(9, cache.getStats().getWeight());
+    }
+
+    @Test
+    public void weightMatchesEntriesAfterRandomOperations() {
+        Random random = new Random(24);
+        EntityCache<String> cache = new EntityCache<>(8, 40, String::length, UnaryOperator.identity());
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(20);
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                cache.invalidate(id);
+            } else if (operation == 1) {
+                cache.get(id);
+            } else {
+                cache.put(id, "x".repeat(1 + random.nextInt(12)));
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (long j = 0; j < 20; j++) {
+                ids.add(j);
+            }
+            Map<Long, String> cached = cache.getAll(ids);
+            assertEquals(cached.size(), cache.getStats().getSize());
+            assertEquals(cached.values().stream().mapToLong(String::length).sum(), cache.getStats().getWeight());
+            assertTrue(cache.getStats().getWeight() <= 40 && cached.size() <= 8);
+        }
+    }
+
+    @Test
+    public void filmCacheReturnsCopies() {
+        FilmCache cache = new FilmCache(10, 1 << 20);
+        Film film = new Film(1, "description", "film", LocalDate.of(2000, 1, 1), 100, new Mpa(1, "G"),
+                new ArrayList<>(List.of(new Genre(1, "Комедия"))));
+        film.setDirectors(new ArrayList<>(List.of(new Director(1, "director"))));
+        cache.put(1, film);
+
+        film.setName("changed after put");
+        Film cached = cache.get(1);
+        assertEquals("film", cached.getName());
+
+        cached.setName("changed after get");
+        cached.getGenres().add(new Genre(2, "Драма"));
+        cached.getDirectors().get(0).setName("renamed");
+
+        Film again = cache.getAll(List.of(1L)).get(1L);
+        assertEquals("film", again.getName());
+        assertEquals(1, again.getGenres().size());
+        assertEquals("director", again.getDirectors().get(0).getName());
+    }
+}
\ No newline at end of file
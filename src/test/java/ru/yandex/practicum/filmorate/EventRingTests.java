@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.EventRing;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventRingTests {
+    private static final int CAPACITY = 10;
+
+    @Test
+    public void wraparoundKeepsNewestEvents() {
+        EventRing ring = new EventRing(CAPACITY);
+        for (int eventId = 1; eventId <= 35; eventId++) {
+            ring.add(eventId, eventId % 3);
+            assertEquals(Math.min(eventId, CAPACITY), ring.size());
+        }
+
+        long[] ids = new long[CAPACITY];
+        int[] authors = new int[CAPACITY];
+        assertEquals(CAPACITY, ring.collect(Long.MAX_VALUE, author -> true, CAPACITY, ids, authors));
+        assertArrayEquals(new long[]{35, 34, 33, 32, 31, 30, 29, 28, 27, 26}, ids);
+        assertArrayEquals(new int[]{2, 1, 0, 2, 1, 0, 2, 1, 0, 2}, authors);
+    }
+
+    @Test
+    public void operationsMatchSortedMap() {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            EventRing ring = new EventRing(CAPACITY);
+            TreeMap<Long, Integer> expected = new TreeMap<>();
+            Set<Long> used = new HashSet<>();
+
+            for (int step = 0; step < 80; step++) {
+                int operation = random.nextInt(10);
+                if (operation < 7) {
+                    long eventId = operation < 5 ? 1000 + step * 10L : 1 + random.nextInt(1000);
+                    if (!used.add(eventId)) {
+                        continue;
+                    }
+                    int author = random.nextInt(5);
+                    ring.add(eventId, author);
+                    expected.put(eventId, author);
+                } else if (operation < 9) {
+                    EventRing other = new EventRing(CAPACITY);
+                    for (int i = 0; i < 4; i++) {
+                        long eventId = 1 + random.nextInt(2000);
+                        if (used.add(eventId)) {
+                            int author = random.nextInt(5);
+                            other.add(eventId, author);
+                            expected.put(eventId, author);
+                        }
+                    }
+                    ring.merge(other);
+                } else {
+                    int author = random.nextInt(5);
+                    ring.removeAuthor(author);
+                    expected.values().removeIf(value -> value == author);
+                }
+                while (expected.size() > CAPACITY) {
+                    expected.pollFirstEntry();
+                }
+
+                assertEquals(expected.size(), ring.size());
+                long beforeId = random.nextBoolean() ? Long.MAX_VALUE : 1 + random.nextInt(2000);
+                int filtered = random.nextInt(5);
+                int max = 1 + random.nextInt(CAPACITY);
+                List<Long> expectedIds = new ArrayList<>();
+                for (Map.Entry<Long, Integer> entry : expected.headMap(beforeId, false).descendingMap().entrySet()) {
+                    if (entry.getValue() != filtered && expectedIds.size() < max) {
+                        expectedIds.add(entry.getKey());
+                    }
+                }
+
+                long[] ids = new long[max];
+                int count = ring.collect(beforeId, author -> author != filtered, max, ids, new int[max]);
+                assertEquals(expectedIds, toList(ids, count));
+            }
+        }
+    }
+
+    private static List<Long> toList(long[] ids, int count) {
+        List<Long> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(ids[i]);
+        }
+        return list;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.dao.DirectorDaoImpl;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Выгрузки NDJSON через MVC: каждая строка ответа - отдельный JSON-объект, и выгруженные записи
+ * совпадают с тем, что возвращают хранилища.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ExportTests {
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final DirectorDaoImpl directorDao;
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+        directorDao.deleteAll();
+    }
+
+    @Test
+    public void filmsExportKeepsGenresAndDirectors() throws Exception {
+        Director first = createDirector("Сергей Бондарчук");
+        Director second = createDirector("Steven Spielberg");
+
+        Film withBoth = new Film(1, "description1", "film1", LocalDate.of(2000, 1, 1), 100, new Mpa(3),
+                List.of(new Genre(3), new Genre(1)));
+        withBoth.setDirectors(List.of(first, second));
+        Film withoutGenres = new Film(2, "description2", "film2", LocalDate.of(2001, 2, 2), 110, new Mpa(1),
+                List.of());
+        withoutGenres.setDirectors(List.of(first));
+        Film withoutDirectors = new Film(3, "description3", "film3", LocalDate.of(2002, 3, 3), 120, new Mpa(2),
+                List.of(new Genre(2)));
+        List<Long> filmIds = new ArrayList<>();
+        for (Film film : List.of(withBoth, withoutGenres, withoutDirectors)) {
+            filmIds.add(filmDbStorage.createFilm(film).getId());
+        }
+
+        List<JsonNode> films = export("/films:export");
+
+        assertEquals(filmIds.size(), films.size());
+        for (int i = 0; i < films.size(); i++) {
+            assertEquals(toJson(filmDbStorage.getFilmById(filmIds.get(i))), films.get(i));
+        }
+        assertEquals(List.of(1, 3), ids(films.get(0).get("genres")));
+        assertEquals("Комедия", films.get(0).get("genres").get(0).get("name").asText());
+        assertEquals(List.of((int) first.getId(), (int) second.getId()), ids(films.get(0).get("directors")));
+        assertEquals("Сергей Бондарчук", films.get(0).get("directors").get(0).get("name").asText());
+        assertEquals("PG-13", films.get(0).get("mpa").get("name").asText());
+        assertEquals("2000-01-01", films.get(0).get("releaseDate").asText());
+
+        assertEquals(List.of(), ids(films.get(1).get("genres"))); //ARRAY_AGG без строк возвращает NULL
+        assertEquals(List.of((int) first.getId()), ids(films.get(1).get("directors")));
+        assertEquals(List.of(2), ids(films.get(2).get("genres")));
+        assertEquals(List.of(), ids(films.get(2).get("directors")));
+    }
+
+    @Test
+    public void usersLikesAndFriendsExports() throws Exception {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            userIds.add(userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, i))).getId());
+        }
+        long filmId = filmDbStorage.createFilm(new Film(1, "description", "film", LocalDate.of(2000, 1, 1), 100,
+                new Mpa(1), List.of(new Genre(1)))).getId();
+        userDbStorage.addFriend(userIds.get(0), userIds.get(1));
+        userDbStorage.addFriend(userIds.get(2), userIds.get(0));
+        filmDbStorage.addLike(filmId, userIds.get(1));
+        filmDbStorage.addLike(filmId, userIds.get(0));
+
+        List<JsonNode> users = export("/users:export");
+        assertEquals(userIds.size(), users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(toJson(userDbStorage.getUserById(userIds.get(i))), users.get(i));
+        }
+
+        List<JsonNode> likes = export("/films/likes:export");
+        assertEquals(List.of(pair("filmId", filmId, "userId", userIds.get(1)),
+                pair("filmId", filmId, "userId", userIds.get(0))), likes);
+
+        List<JsonNode> friends = export("/users/friends:export");
+        assertEquals(List.of(pair("userId", userIds.get(0), "friendId", userIds.get(1)),
+                pair("userId", userIds.get(2), "friendId", userIds.get(0))), friends);
+    }
+
+    private Director createDirector(String name) {
+        Director director = new Director();
+        director.setName(name);
+        directorDao.createDirector(director);
+        return directorDao.getLastAddedDirector();
+    }
+
+    /*
+     * Ответ разбирается построчно: каждая непустая строка должна быть полным JSON-объектом,
+     * а ответ - заканчиваться переводом строки.
+     */
+    private List<JsonNode> export(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals("application/x-ndjson", response.getContentType());
+
+        String body = new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+        List<JsonNode> rows = new ArrayList<>();
+        if (body.isEmpty()) {
+            return rows;
+        }
+        assertTrue(body.endsWith("\n"));
+        for (String line : body.substring(0, body.length() - 1).split("\n", -1)) {
+            JsonNode row = objectMapper.readTree(line);
+            assertTrue(row.isObject(), line);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private JsonNode toJson(Object value) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsString(value));
+    }
+
+    private static List<Integer> ids(JsonNode array) {
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode item : array) {
+            ids.add(item.get("id").asInt());
+        }
+        return ids;
+    }
+
+    private JsonNode pair(String firstName, long firstValue, String secondName, long secondValue) throws Exception {
+        return toJson(Map.of(firstName, firstValue, secondName, secondValue));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+import ru.yandex.practicum.filmorate.model.Feed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FeedEventBusTests {
+    private static final int BUFFER_SIZE = 4;
+    private static final int EVENTS = 300;
+
+    @Test
+    public void subscribersReceiveOwnEventsInOrder() throws Exception {
+        FeedEventBus eventBus = new FeedEventBus(EVENTS, 4);
+        List<Long> first = new CopyOnWriteArrayList<>();
+        List<Long> second = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(1, feed -> first.add(feed.getEventId()), () -> { });
+        eventBus.subscribe(2, feed -> second.add(feed.getEventId()), () -> { });
+
+        List<Long> expectedFirst = new ArrayList<>();
+        List<Long> expectedSecond = new ArrayList<>();
+        List<Feed> batch = new ArrayList<>();
+        for (long eventId = 1; eventId <= EVENTS; eventId++) {
+            long userId = eventId % 3 == 0 ? 2 : 1;
+            (userId == 1 ? expectedFirst : expectedSecond).add(eventId);
+            batch.add(event(userId, eventId));
+            if (batch.size() == 7) {
+                eventBus.publish(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        eventBus.publish(batch);
+
+        awaitSize(first, expectedFirst.size());
+        awaitSize(second, expectedSecond.size());
+        assertEquals(expectedFirst, first);
+        assertEquals(expectedSecond, second);
+        assertEquals(2, eventBus.getSubscriberCount());
+    }
+
+    @Test
+    public void slowSubscriberIsDisconnected() throws Exception {
+        FeedEventBus eventBus = new FeedEventBus(BUFFER_SIZE, 2);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        List<Long> slow = new CopyOnWriteArrayList<>();
+        List<Long> fast = new CopyOnWriteArrayList<>();
+        eventBus.subscribe(1, feed -> {
+            slow.add(feed.getEventId());
+            sending.countDown();
+            release.await();
+        }, closed::countDown);
+        eventBus.subscribe(1, feed -> fast.add(feed.getEventId()), () -> { });
+
+        eventBus.publish(List.of(event(1, 1)));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        //первое событие отправляется, буфер медленного подписчика вмещает еще BUFFER_SIZE событий
+        for (long eventId = 2; eventId <= BUFFER_SIZE + 2; eventId++) {
+            assertEquals(1, closed.getCount());
+            eventBus.publish(List.of(event(1, eventId)));
+            awaitSize(fast, (int) eventId);
+        }
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, eventBus.getSubscriberCount());
+        release.countDown();
+
+        eventBus.publish(List.of(event(1, BUFFER_SIZE + 3)));
+        List<Long> expected = LongStream.rangeClosed(1, BUFFER_SIZE + 3).boxed().collect(Collectors.toList());
+        awaitSize(fast, expected.size());
+        assertEquals(expected, fast);
+        assertEquals(List.of(1L), slow);
+    }
+
+    private static void awaitSize(List<Long> received, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(size, received.size());
+    }
+
+    private static Feed event(long userId, long eventId) {
+        return Feed.builder()
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType("LIKE")
+                .operation("ADD")
+                .eventId(eventId)
+                .entityId(eventId)
+                .build();
+    }
+}
\ No newline at end of file
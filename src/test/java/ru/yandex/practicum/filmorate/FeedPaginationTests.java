@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /users/{id}/feed через MVC: без параметров отдается вся лента, с limit - страницы, связанные
+ * заголовками Link и X-Next-Cursor.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FeedPaginationTests {
+    private static final int FRIENDS = 7;
+    private static final Pattern NEXT_LINK = Pattern.compile("^<(.+)>; rel=\"next\"$");
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void feedWithoutParametersIsNotPaged() throws Exception {
+        long userId = createUserWithFriends();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/users/{id}/feed", userId)).andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.LINK));
+        assertNull(response.getHeader("X-Next-Cursor"));
+        assertEquals(expectedEventIds(userId), eventIds(response));
+    }
+
+    @Test
+    public void nextLinkWalksTheWholeFeed() throws Exception {
+        long userId = createUserWithFriends();
+
+        List<Long> eventIds = new ArrayList<>();
+        String url = "/users/" + userId + "/feed?limit=3";
+        int pages = 0;
+        while (url != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url)).andReturn().getResponse();
+            assertEquals(200, response.getStatus());
+            List<Long> page = eventIds(response);
+            eventIds.addAll(page);
+            pages++;
+
+            String link = response.getHeader(HttpHeaders.LINK);
+            String cursor = response.getHeader("X-Next-Cursor");
+            if (link == null) {
+                assertNull(cursor);
+                url = null;
+            } else {
+                assertEquals(3, page.size());
+                assertEquals(String.valueOf(page.get(2)), cursor);
+                Matcher matcher = NEXT_LINK.matcher(link);
+                assertTrue(matcher.matches(), link);
+                url = matcher.group(1);
+                assertTrue(url.contains("after=" + cursor), url);
+                assertTrue(url.contains("limit=3"), url);
+            }
+        }
+
+        assertEquals(3, pages);
+        assertEquals(expectedEventIds(userId), eventIds);
+    }
+
+    @Test
+    public void limitOutOfRangeIsBadRequest() throws Exception {
+        long userId = createUserWithFriends();
+
+        assertEquals(400, mockMvc.perform(get("/users/{id}/feed", userId).param("limit", "0")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(400, mockMvc.perform(get("/users/{id}/feed", userId).param("limit", "1001")).andReturn()
+                .getResponse().getStatus());
+        assertEquals(200, mockMvc.perform(get("/users/{id}/feed", userId).param("limit", "1000")).andReturn()
+                .getResponse().getStatus());
+    }
+
+    private long createUserWithFriends() throws Exception {
+        long userId = createUser(0);
+        for (int i = 1; i <= FRIENDS; i++) {
+            userDbStorage.addFriend(userId, createUser(i));
+        }
+        return userId;
+    }
+
+    private long createUser(int i) throws Exception {
+        return userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                LocalDate.of(1990, 1, 1))).getId();
+    }
+
+    private List<Long> expectedEventIds(long userId) {
+        List<Long> eventIds = userDbStorage.getFeeds(userId).stream()
+                .map(Feed::getEventId)
+                .collect(Collectors.toList());
+        assertEquals(FRIENDS, eventIds.size());
+        return eventIds;
+    }
+
+    private List<Long> eventIds(MockHttpServletResponse response) throws Exception {
+        List<Long> eventIds = new ArrayList<>();
+        for (JsonNode feed : objectMapper.readTree(response.getContentAsByteArray())) {
+            eventIds.add(feed.get("eventId").asLong());
+        }
+        return eventIds;
+    }
+}
\ No newline at end of file
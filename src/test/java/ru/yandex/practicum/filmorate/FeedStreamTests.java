@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.dao.FeedWriter;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * GET /users/{id}/feed/stream через MVC: после подписки изменения пользователя приходят событиями SSE
+ * в порядке event_id и совпадают с его лентой, а события других пользователей не приходят.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FeedStreamTests {
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final FeedEventBus feedEventBus;
+    private final FeedWriter feedWriter;
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void streamSendsUserEventsInOrder() throws Exception {
+        long userId = createUser(1);
+        long friendId = createUser(2);
+        long otherId = createUser(3);
+        long filmId = filmDbStorage.createFilm(new Film(1, "description", "film", LocalDate.of(2000, 1, 1), 100,
+                new Mpa(1), List.of(new Genre(1)))).getId();
+        userDbStorage.addFriend(userId, otherId); //событие, опубликованное до подписки, в поток не попадает
+        feedWriter.awaitPublished(new int[]{(int) userId});
+        long subscribedAfter = lastEventId(userId);
+        int subscribers = feedEventBus.getSubscriberCount();
+
+        MvcResult result = mockMvc.perform(get("/users/{id}/feed/stream", userId)).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertEquals(subscribers + 1, feedEventBus.getSubscriberCount());
+
+        userDbStorage.addFriend(userId, friendId);
+        filmDbStorage.addLike(filmId, userId);
+        filmDbStorage.addLike(filmId, friendId);
+        userDbStorage.addFriend(friendId, userId);
+        filmDbStorage.removeLike(filmId, userId);
+        userDbStorage.removeFriend(userId, friendId);
+
+        List<String> expected = new ArrayList<>();
+        for (Feed feed : userDbStorage.getFeeds(userId)) {
+            if (feed.getEventId() > subscribedAfter) {
+                expected.add(describe(feed.getEventId(), feed.getUserId(), feed.getEntityId(), feed.getEventType(),
+                        feed.getOperation()));
+            }
+        }
+        assertEquals(List.of("FRIEND ADD", "LIKE ADD", "LIKE REMOVE", "FRIEND REMOVE"), expected.stream()
+                .map(event -> event.substring(event.lastIndexOf(':') + 1))
+                .collect(Collectors.toList()));
+
+        assertEquals(expected, awaitEvents(result.getResponse(), expected.size()));
+    }
+
+    private long createUser(int i) throws Exception {
+        return userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                LocalDate.of(1990, 1, 1))).getId();
+    }
+
+    private static String describe(long eventId, long userId, long entityId, String eventType, String operation) {
+        return String.format("%d:%d:%d:%s %s", eventId, userId, entityId, eventType, operation);
+    }
+
+    private long lastEventId(long userId) {
+        List<Feed> feeds = userDbStorage.getFeeds(userId);
+        return feeds.isEmpty() ? 0 : feeds.get(feeds.size() - 1).getEventId();
+    }
+
+    /*
+     * Разбор тела ответа SSE: каждое событие - строки id:, event:feed и data: с JSON события,
+     * за которыми идет пустая строка. Событие, которое еще дописывается, пропускается.
+     */
+    private List<String> awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<String> feeds = parseEvents(response.getContentAsString());
+        while (feeds.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            feeds = parseEvents(response.getContentAsString());
+        }
+        return feeds;
+    }
+
+    private List<String> parseEvents(String body) throws Exception {
+        List<String> feeds = new ArrayList<>();
+        for (String event : body.substring(0, body.lastIndexOf("\n\n") + 1).split("\n\n")) {
+            String id = null;
+            String name = null;
+            String data = null;
+            for (String line : event.split("\n")) {
+                if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data = line.substring(5);
+                }
+            }
+            if (data == null) {
+                continue;
+            }
+            JsonNode feed = objectMapper.readTree(data);
+            assertEquals("feed", name);
+            assertEquals(feed.get("eventId").asText(), id);
+            feeds.add(describe(feed.get("eventId").asLong(), feed.get("userId").asLong(),
+                    feed.get("entityId").asLong(), feed.get("eventType").asText(), feed.get("operation").asText()));
+        }
+        return feeds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dao.FeedWriter;
+import ru.yandex.practicum.filmorate.event.FeedEventBus;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Feed;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Отдельный экземпляр FeedWriter без фонового потока: события попадают в таблицу только при явном сбросе,
+ * поэтому очередь можно проверять детерминированно.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FeedWriterTests {
+    private static final int BATCH_SIZE = 50;
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void concurrentAppendsAreWrittenAndPublishedInEventIdOrder() throws Exception {
+        List<Long> userIds = createUsers(4);
+        FeedEventBus eventBus = new FeedEventBus(16, 1);
+        List<Feed> published = new CopyOnWriteArrayList<>();
+        eventBus.addListener(published::add);
+        FeedWriter writer = new FeedWriter(jdbcTemplate, transactionTemplate, eventBus, 100, BATCH_SIZE, 50, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long userId = userIds.get(thread % userIds.size());
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 300; i++) {
+                        writer.append(event(userId, i));
+                        if (i % 70 == 0) {
+                            writer.flush();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        writer.flush();
+
+        List<Long> eventIds = published.stream().map(Feed::getEventId).collect(Collectors.toList());
+        List<Long> sorted = new ArrayList<>(eventIds);
+        Collections.sort(sorted);
+        assertEquals(8 * 300, eventIds.size());
+        assertEquals(sorted, eventIds);
+        assertEquals(sorted, jdbcTemplate.queryForList("select event_id from feeds order by event_id", Long.class));
+    }
+
+    @Test
+    public void appendedEventsWaitForFlushAndDiscardDropsThem() throws Exception {
+        List<Long> userIds = createUsers(2);
+        FeedEventBus eventBus = new FeedEventBus(16, 1);
+        List<Feed> published = new CopyOnWriteArrayList<>();
+        eventBus.addListener(published::add);
+        FeedWriter writer = new FeedWriter(jdbcTemplate, transactionTemplate, eventBus, 100, BATCH_SIZE, 50, 10);
+
+        for (int i = 0; i < 10; i++) {
+            writer.append(event(userIds.get(i % 2), i));
+        }
+        assertEquals(0, countFeeds());
+
+        writer.discard(feed -> feed.getUserId() == userIds.get(0));
+        assertEquals(0, countFeeds());
+        writer.flush();
+
+        assertEquals(5, countFeeds());
+        assertEquals(5, published.size());
+        assertTrue(published.stream().allMatch(feed -> feed.getUserId() == userIds.get(1)));
+    }
+
+    @Test
+    public void listenersRunAfterFlushLockIsReleased() throws Exception {
+        List<Long> userIds = createUsers(1);
+        FeedEventBus eventBus = new FeedEventBus(16, 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        FeedWriter writer = new FeedWriter(jdbcTemplate, transactionTemplate, eventBus, 100, BATCH_SIZE, 50, 10);
+        List<Boolean> otherFlushes = new CopyOnWriteArrayList<>();
+        eventBus.addListener(feed -> {
+            try {
+                executor.submit(writer::flush).get(5, TimeUnit.SECONDS);
+                otherFlushes.add(true);
+            } catch (Exception e) {
+                otherFlushes.add(false);
+            }
+        });
+
+        try {
+            writer.append(event(userIds.get(0), 1));
+            writer.append(event(userIds.get(0), 2));
+            writer.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(true, true), otherFlushes);
+    }
+
+    @Test
+    public void readsFlushOnlyUsersWithPendingEvents() throws Exception {
+        List<Long> userIds = createUsers(3);
+        FeedEventBus eventBus = new FeedEventBus(16, 1);
+        List<Feed> published = new CopyOnWriteArrayList<>();
+        eventBus.addListener(published::add);
+        FeedWriter writer = new FeedWriter(jdbcTemplate, transactionTemplate, eventBus, 100, BATCH_SIZE, 50, 10);
+
+        writer.append(event(userIds.get(0), 1));
+        writer.append(event(userIds.get(1), 2));
+        writer.awaitWritten(userIds.get(2));
+        assertEquals(0, countFeeds());
+
+        writer.awaitWritten(userIds.get(0));
+        assertEquals(2, countFeeds());
+        assertEquals(2, published.size());
+
+        writer.append(event(userIds.get(1), 3));
+        writer.awaitPublished(new int[]{userIds.get(0).intValue(), userIds.get(2).intValue()});
+        assertEquals(2, countFeeds());
+        writer.awaitPublished(new int[]{userIds.get(1).intValue()});
+        assertEquals(3, countFeeds());
+        assertEquals(3, published.size());
+
+        writer.append(event(userIds.get(0), 4));
+        writer.discard(feed -> feed.getUserId() == userIds.get(0));
+        writer.awaitWritten(userIds.get(0));
+        writer.awaitWritten(userIds.get(1));
+        assertEquals(3, countFeeds());
+    }
+
+    private List<Long> createUsers(int count) throws Exception {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            userIds.add(userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1))).getId());
+        }
+        return userIds;
+    }
+
+    private int countFeeds() {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from feeds", Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private static Feed event(long userId, long entityId) {
+        return Feed.builder()
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType(EventType.LIKE.name())
+                .operation(Operation.ADD.name())
+                .entityId(entityId)
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Граф дружбы в памяти сверяется с таблицей friends, которую он заменил при поиске общих друзей.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class FriendGraphTests {
+    private static final int USERS = 25;
+    private final UserDbStorage userDbStorage;
+    private final FriendGraph friendGraph;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void commonFriendsMatchFriendsTable() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        Random random = new Random(9);
+        for (int i = 0; i < 300; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            long friendId = 1 + random.nextInt(USERS);
+            if (userId == friendId) {
+                continue;
+            }
+            if (random.nextInt(4) == 0) {
+                userDbStorage.removeFriend(userId, friendId);
+            } else {
+                userDbStorage.addFriend(userId, friendId);
+            }
+        }
+        userDbStorage.deleteUser(USERS);
+
+        for (long userId = 1; userId < USERS; userId++) {
+            assertArrayEquals(toArray(queryIds("select friend_id from friends where user_id = ? order by friend_id",
+                    userId)), friendGraph.getFriends(userId));
+            assertArrayEquals(toArray(queryIds("select user_id from friends where friend_id = ? order by user_id",
+                    userId)), friendGraph.getFollowers(userId));
+
+            for (long otherUserId = userId + 1; otherUserId < USERS; otherUserId++) {
+                List<Long> expected = queryIds("select f1.friend_id from friends f1 " +
+                        "join friends f2 on f1.friend_id = f2.friend_id " +
+                        "where f1.user_id = ? and f2.user_id = ? order by f1.friend_id", userId, otherUserId);
+                List<Long> actual = userDbStorage.getCommonFriends(userId, otherUserId).stream()
+                        .map(User::getId)
+                        .collect(Collectors.toList());
+                assertEquals(expected, actual);
+            }
+        }
+
+        Map<Long, List<Long>> friendIdsByUser = new HashMap<>();
+        jdbcTemplate.query("select user_id, friend_id from friends", rs -> {
+            long friendId = rs.getLong("friend_id");
+            friendIdsByUser.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(friendId);
+        });
+        FriendGraph rebuilt = new FriendGraph();
+        rebuilt.rebuild(friendIdsByUser);
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertArrayEquals(friendGraph.getFriends(userId), rebuilt.getFriends(userId));
+            assertArrayEquals(friendGraph.getFollowers(userId), rebuilt.getFollowers(userId));
+        }
+    }
+
+    private List<Long> queryIds(String sql, Object... args) {
+        return jdbcTemplate.queryForList(sql, Long.class, args);
+    }
+
+    private static int[] toArray(List<Long> ids) {
+        return ids.stream().mapToInt(Long::intValue).toArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.FriendNetwork;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FriendNetworkTests {
+    private static final int USERS = 40;
+
+    @Test
+    public void distanceMatchesBreadthFirstSearch() {
+        FriendGraph graph = randomGraph(10, 60);
+        FriendNetwork network = new FriendNetwork(graph, 100000, 100000);
+
+        for (int userId = 1; userId <= USERS; userId++) {
+            Map<Integer, Integer> depths = breadthFirstSearch(graph, userId);
+            for (int otherUserId = 1; otherUserId <= USERS; otherUserId++) {
+                assertEquals(depths.getOrDefault(otherUserId, FriendNetwork.UNREACHABLE),
+                        network.getDistance(userId, otherUserId), userId + " -> " + otherUserId);
+            }
+        }
+    }
+
+    @Test
+    public void exhaustedBudgetIsUnknownNotUnreachable() {
+        FriendGraph graph = new FriendGraph();
+        for (int userId = 1; userId < 10; userId++) {
+            graph.addFriend(userId, userId + 1);
+        }
+        graph.addFriend(20, 21);
+
+        assertEquals(9, new FriendNetwork(graph, 100, 100).getDistance(1, 10));
+        assertEquals(FriendNetwork.UNKNOWN, new FriendNetwork(graph, 100, 4).getDistance(1, 10));
+        assertEquals(FriendNetwork.UNREACHABLE, new FriendNetwork(graph, 100, 100).getDistance(1, 20));
+        assertEquals(FriendNetwork.UNREACHABLE, new FriendNetwork(graph, 100, 100).getDistance(10, 1));
+    }
+
+    @Test
+    public void suggestionsMatchFriendsOfFriends() {
+        FriendGraph graph = randomGraph(11, 150);
+        FriendNetwork network = new FriendNetwork(graph, 100000, 100000);
+
+        for (int userId = 1; userId <= USERS; userId++) {
+            Set<Integer> friends = toSet(graph.getFriends(userId));
+            Map<Integer, Integer> mutual = new HashMap<>();
+            for (int friend : friends) {
+                for (int candidate : graph.getFriends(friend)) {
+                    if (candidate != userId && !friends.contains(candidate)) {
+                        mutual.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            List<Long> expected = mutual.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .limit(5)
+                    .map(entry -> (long) entry.getKey())
+                    .collect(Collectors.toList());
+            assertEquals(expected, network.getSuggestions(userId, 5));
+        }
+    }
+
+    private static FriendGraph randomGraph(long seed, int edges) {
+        FriendGraph graph = new FriendGraph();
+        Random random = new Random(seed);
+        for (int i = 0; i < edges; i++) {
+            int userId = 1 + random.nextInt(USERS);
+            int friendId = 1 + random.nextInt(USERS);
+            if (userId != friendId) {
+                graph.addFriend(userId, friendId);
+            }
+        }
+        return graph;
+    }
+
+    private static Map<Integer, Integer> breadthFirstSearch(FriendGraph graph, int userId) {
+        Map<Integer, Integer> depths = new HashMap<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        depths.put(userId, 0);
+        queue.add(userId);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int friend : graph.getFriends(node)) {
+                if (depths.putIfAbsent(friend, depths.get(node) + 1) == null) {
+                    queue.add(friend);
+                }
+            }
+        }
+        return depths;
+    }
+
+    private static Set<Integer> toSet(int[] values) {
+        return Arrays.stream(values).boxed().collect(Collectors.toSet());
+    }
+}
\ No newline at end of file
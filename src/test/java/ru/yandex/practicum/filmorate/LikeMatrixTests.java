@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.index.SortedInts;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikeMatrixTests {
+
+    @Test
+    public void rowsAndColumnsMatchLikePairs() {
+        LikeMatrix matrix = new LikeMatrix();
+        Map<Integer, Set<Integer>> filmsByUser = new HashMap<>();
+        Random random = new Random(6);
+
+        for (int i = 0; i < 2000; i++) {
+            int userId = 1 + random.nextInt(20);
+            int filmId = 1 + random.nextInt(30);
+            int action = random.nextInt(20);
+            if (action == 0) {
+                matrix.removeUser(userId);
+                filmsByUser.remove(userId);
+            } else if (action == 1) {
+                matrix.removeFilm(filmId);
+                filmsByUser.values().forEach(films -> films.remove(filmId));
+            } else if (action < 8) {
+                matrix.remove(userId, filmId);
+                filmsByUser.getOrDefault(userId, new HashSet<>()).remove(filmId);
+            } else {
+                matrix.add(userId, filmId);
+                filmsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(filmId);
+            }
+        }
+
+        for (int userId = 1; userId <= 20; userId++) {
+            Set<Integer> films = filmsByUser.getOrDefault(userId, Set.of());
+            assertArrayEquals(sorted(films), matrix.getUserLikes(userId));
+            for (int filmId = 1; filmId <= 30; filmId++) {
+                assertEquals(films.contains(filmId), matrix.hasLike(userId, filmId));
+            }
+        }
+        for (int filmId = 1; filmId <= 30; filmId++) {
+            Set<Integer> users = new HashSet<>();
+            for (Map.Entry<Integer, Set<Integer>> entry : filmsByUser.entrySet()) {
+                if (entry.getValue().contains(filmId)) {
+                    users.add(entry.getKey());
+                }
+            }
+            assertArrayEquals(sorted(users), matrix.getFilmLikes(filmId));
+        }
+    }
+
+    @Test
+    public void rebuildMatchesAddedLikes() {
+        LikeMatrix added = new LikeMatrix();
+        Map<Long, List<Long>> likedFilmsByUser = new HashMap<>();
+        Random random = new Random(60);
+        for (long userId = 1; userId <= 50; userId++) {
+            Set<Long> films = new HashSet<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                long filmId = 1 + random.nextInt(100);
+                if (films.add(filmId)) {
+                    added.add(userId, filmId);
+                }
+            }
+            likedFilmsByUser.put(userId, new ArrayList<>(films));
+        }
+        likedFilmsByUser.put(51L, List.of());
+
+        LikeMatrix rebuilt = new LikeMatrix();
+        rebuilt.add(999, 999); //rebuild заменяет прежнее содержимое
+        rebuilt.rebuild(likedFilmsByUser);
+
+        for (long userId = 1; userId <= 51; userId++) {
+            assertArrayEquals(added.getUserLikes(userId), rebuilt.getUserLikes(userId));
+        }
+        for (long filmId = 1; filmId <= 100; filmId++) {
+            assertArrayEquals(added.getFilmLikes(filmId), rebuilt.getFilmLikes(filmId));
+        }
+        assertEquals(added.getFilmIds(), rebuilt.getFilmIds());
+    }
+
+    @Test
+    public void removeUserReturnsLikedFilms() {
+        LikeMatrix matrix = new LikeMatrix();
+        matrix.add(1, 5);
+        matrix.add(1, 3);
+        matrix.add(2, 3);
+
+        assertArrayEquals(new int[]{3, 5}, matrix.removeUser(1));
+        assertArrayEquals(new int[]{2}, matrix.getFilmLikes(3));
+        assertArrayEquals(SortedInts.EMPTY, matrix.getFilmLikes(5));
+        assertArrayEquals(SortedInts.EMPTY, matrix.removeUser(1));
+    }
+
+    @Test
+    public void idsOutsideIntRangeHaveNoLikes() {
+        LikeMatrix matrix = new LikeMatrix();
+        assertArrayEquals(SortedInts.EMPTY, matrix.getUserLikes(-1));
+        assertFalse(matrix.hasLike(1, 1L << 40));
+    }
+
+    private static int[] sorted(Collection<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,275 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Рейтинги популярности в памяти сверяются с тем же запросом к таблице likes, который они заменили.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class PopularityIndexTests {
+    private static final int USERS = 30;
+    private static final int FILMS = 40;
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void topMatchesLikesTable() throws Exception {
+        createUsersAndFilms();
+        Random random = new Random(4);
+        for (int i = 0; i < 400; i++) {
+            long filmId = 1 + random.nextInt(FILMS);
+            long userId = 1 + random.nextInt(USERS);
+            if (random.nextInt(4) == 0) {
+                filmDbStorage.removeLike(filmId, userId);
+            } else {
+                filmDbStorage.addLike(filmId, userId);
+            }
+        }
+
+        assertEquals(queryTop(FILMS), ids(filmDbStorage.getPopular(FILMS)));
+        assertEquals(queryTop(10), ids(filmDbStorage.getPopular(10)));
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            assertEquals(countLikes(filmId), popularityIndex.getLikes(filmId));
+        }
+    }
+
+    @Test
+    public void filteredTopMatchesLikesTable() throws Exception {
+        createUsersAndFilms();
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            filmDbStorage.addLike(1 + random.nextInt(FILMS), 1 + random.nextInt(USERS));
+        }
+
+        for (int genreId = 1; genreId <= 6; genreId++) {
+            assertEquals(queryTop(FILMS, genreId, null),
+                    ids(filmDbStorage.getAllPopularFilmsOrderByLikes(FILMS, genreId, null)));
+            for (int year = 2000; year < 2005; year++) {
+                assertEquals(queryTop(FILMS, genreId, year),
+                        ids(filmDbStorage.getAllPopularFilmsOrderByLikes(FILMS, genreId, year)));
+            }
+        }
+        for (int year = 2000; year < 2005; year++) {
+            assertEquals(queryTop(5, null, year), ids(filmDbStorage.getAllPopularFilmsOrderByLikes(5, null, year)));
+        }
+    }
+
+    @Test
+    public void outOfRangeFiltersDoNotHitOtherRankings() throws Exception {
+        createUsersAndFilms();
+
+        assertEquals(6, popularityIndex.getTop(FILMS, 1, null).size());
+        assertEquals(List.of(), popularityIndex.getTop(FILMS, 0, 65536 + 2000));
+        assertEquals(List.of(), popularityIndex.getTop(FILMS, -1, 2000));
+        assertEquals(List.of(), popularityIndex.getTop(FILMS, null, -1));
+    }
+
+    @Test
+    public void concurrentLikesOfOnePairCountOnce() throws Exception {
+        createUsersAndFilms();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                long filmId = 1 + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        filmDbStorage.addLike(filmId, 1);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, countLikes(filmId));
+                assertEquals(1, popularityIndex.getLikes(filmId));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        filmDbStorage.removeLike(1, 1);
+        filmDbStorage.removeLike(1, 1);
+        assertEquals(0, countLikes(1));
+        assertEquals(0, popularityIndex.getLikes(1));
+    }
+
+    @Test
+    public void batchDecidesAppliedFromLikesTable() throws Exception {
+        createUsersAndFilms();
+        jdbcTemplate.update("insert into likes (film_id, user_id) values (1, 1)"); //мимо индексов в памяти
+
+        List<LikeOperationResult> results = filmDbStorage.applyLikes(List.of(
+                new LikeOperation(1L, 1L, "ADD"), new LikeOperation(2L, 1L, "REMOVE"),
+                new LikeOperation(3L, 1L, "ADD")));
+
+        assertEquals(List.of(LikeOperationResult.Status.UNCHANGED, LikeOperationResult.Status.UNCHANGED,
+                LikeOperationResult.Status.APPLIED), results.stream().map(LikeOperationResult::getStatus)
+                .collect(Collectors.toList()));
+        assertEquals(0, popularityIndex.getLikes(1));
+        assertEquals(1, popularityIndex.getLikes(3));
+    }
+
+    @Test
+    public void concurrentBatchAndSingleLikesMatchLikesTable() throws Exception {
+        createUsersAndFilms();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long seed = thread;
+                boolean batch = thread % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100; i++) {
+                        if (batch) {
+                            List<LikeOperation> operations = new ArrayList<>();
+                            for (int j = 0; j < 4; j++) {
+                                operations.add(new LikeOperation(1L + random.nextInt(10), 1L + random.nextInt(5),
+                                        random.nextInt(3) == 0 ? "REMOVE" : "ADD"));
+                            }
+                            filmDbStorage.applyLikes(operations);
+                        } else if (random.nextInt(3) == 0) {
+                            filmDbStorage.removeLike(1 + random.nextInt(10), 1 + random.nextInt(5));
+                        } else {
+                            filmDbStorage.addLike(1 + random.nextInt(10), 1 + random.nextInt(5));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long filmId = 1; filmId <= 10; filmId++) {
+            assertEquals(countLikes(filmId), popularityIndex.getLikes(filmId));
+        }
+        assertEquals(queryTop(FILMS), ids(filmDbStorage.getPopular(FILMS)));
+    }
+
+    @Test
+    public void createdAndImportedFilmsGetDistinctIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                boolean imports = thread % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        if (imports) {
+                            List<Film> chunk = new ArrayList<>();
+                            for (int j = 0; j < 5; j++) {
+                                chunk.add(new Film(0, "description", "imported", LocalDate.of(2000, 1, 1), 100,
+                                        new Mpa(1), new ArrayList<>()));
+                            }
+                            filmDbStorage.importFilms(chunk);
+                        } else {
+                            filmDbStorage.createFilm(new Film(0, "description", "created",
+                                    LocalDate.of(2000, 1, 1), 100, new Mpa(1), new ArrayList<>()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(120, jdbcTemplate.queryForObject("select count(distinct film_id) from films", Integer.class));
+        assertEquals(queryTop(120), ids(filmDbStorage.getPopular(120)));
+    }
+
+    private void createUsersAndFilms() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            List<Genre> genres = new ArrayList<>();
+            genres.add(new Genre(1 + i % 6));
+            if (i % 3 == 0) {
+                genres.add(new Genre(1 + (i + 1) % 6));
+            }
+            filmDbStorage.createFilm(new Film(i, "description", "film" + i,
+                    LocalDate.of(2000 + i % 5, 1, 1), 100, new Mpa(1), genres));
+        }
+    }
+
+    private List<Long> queryTop(int count) {
+        return jdbcTemplate.queryForList("select f.film_id from films f left join likes l on f.film_id = l.film_id " +
+                "group by f.film_id order by count(l.user_id) desc, f.film_id limit ?", Long.class, count);
+    }
+
+    private List<Long> queryTop(int count, Integer genreId, Integer year) {
+        String where = "where 1 = 1";
+        List<Object> args = new ArrayList<>();
+        if (genreId != null) {
+            where += " and exists (select 1 from films_genres g where g.film_id = f.film_id and g.genre_id = ?)";
+            args.add(genreId);
+        }
+        if (year != null) {
+            where += " and extract(year from f.release_date) = ?";
+            args.add(year);
+        }
+        args.add(count);
+        return jdbcTemplate.queryForList("select f.film_id from films f left join likes l on f.film_id = l.film_id " +
+                where + " group by f.film_id order by count(l.user_id) desc, f.film_id limit ?", Long.class,
+                args.toArray());
+    }
+
+    private int countLikes(long filmId) {
+        Integer likes = jdbcTemplate.queryForObject("select count(*) from likes where film_id = ?", Integer.class,
+                filmId);
+        return likes == null ? 0 : likes;
+    }
+
+    private static List<Long> ids(Collection<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.PrefixTrie;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class PrefixTrieTests {
+    private static final int SIZE = 5;
+    private static final String[] WORDS = {"star", "stars", "start", "stop", "war", "wars", "ward", "a", "ab", "abc"};
+    private static final String[] PREFIXES = {"", "s", "st", "sta", "star", "start", "w", "war", "wars", "a", "ab",
+            "abc", "x", "stx"};
+
+    @Test
+    public void raiseLowerAndRemoveMatchBruteForce() {
+        Random random = new Random(12);
+        Map<Integer, Long> weights = new HashMap<>();
+        Map<Integer, Set<String>> keys = new HashMap<>();
+        PrefixTrie trie = new PrefixTrie(SIZE, id -> weights.getOrDefault(id, 0L));
+
+        for (int step = 0; step < 3000; step++) {
+            int id = random.nextInt(40);
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                String key = WORDS[random.nextInt(WORDS.length)];
+                if (keys.computeIfAbsent(id, k -> new HashSet<>()).add(key)) {
+                    trie.add(key, id);
+                }
+            } else if (operation == 1) {
+                Set<String> idKeys = keys.getOrDefault(id, Collections.emptySet());
+                if (!idKeys.isEmpty()) {
+                    String key = idKeys.iterator().next();
+                    idKeys.remove(key);
+                    trie.remove(key, id);
+                }
+            } else {
+                long oldWeight = weights.getOrDefault(id, 0L);
+                long delta = operation == 2 ? 1 + random.nextInt(3) : -1 - random.nextInt(3);
+                long newWeight = Math.max(0, oldWeight + delta);
+                weights.put(id, newWeight);
+                for (String key : keys.getOrDefault(id, Collections.emptySet())) {
+                    if (newWeight > oldWeight) {
+                        trie.raise(key, id);
+                    } else if (newWeight < oldWeight) {
+                        trie.lower(key, id);
+                    }
+                }
+            }
+
+            if (step % 10 == 0) {
+                for (String prefix : PREFIXES) {
+                    assertArrayEquals(expectedTop(keys, weights, prefix), trie.top(prefix),
+                            "step " + step + ", prefix '" + prefix + "'");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void concurrentReadsOfInvalidatedTrieMatchBruteForce() throws Exception {
+        Map<Integer, Long> weights = new HashMap<>();
+        Map<Integer, Set<String>> keys = new HashMap<>();
+        PrefixTrie trie = new PrefixTrie(SIZE, id -> weights.getOrDefault(id, 0L));
+        for (int id = 0; id < 200; id++) {
+            String key = WORDS[id % WORDS.length];
+            weights.put(id, (long) (id * 7 % 31));
+            keys.computeIfAbsent(id, k -> new HashSet<>()).add(key);
+            trie.add(key, id);
+        }
+        trie.invalidateAll();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (String prefix : PREFIXES) {
+                        assertArrayEquals(expectedTop(keys, weights, prefix), trie.top(prefix), prefix);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int[] expectedTop(Map<Integer, Set<String>> keys, Map<Integer, Long> weights, String prefix) {
+        return keys.entrySet().stream()
+                .filter(entry -> entry.getValue().stream().anyMatch(key -> key.startsWith(prefix)))
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.<Integer, Long>comparing(id -> weights.getOrDefault(id, 0L)).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(SIZE)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
\ No newline at end of file
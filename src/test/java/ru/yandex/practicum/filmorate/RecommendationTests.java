@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Рекомендации по матрице лайков в памяти сверяются с тем же расчетом (соседи по мере Жаккара),
+ * выполненным по строкам таблицы likes.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RecommendationTests {
+    private static final int USERS = 30;
+    private static final int FILMS = 40;
+    private static final int NEIGHBOURS = 10; //filmorate.recommendations.neighbours
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void recommendationsMatchLikesTable() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            filmDbStorage.createFilm(new Film(i, "description", "film" + i, LocalDate.of(2000, 1, 1), 100,
+                    new Mpa(1), new ArrayList<>()));
+        }
+        Random random = new Random(6);
+        for (int i = 0; i < 350; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            long filmId = 1 + random.nextInt(userId <= USERS / 2 ? FILMS / 2 : FILMS);
+            if (random.nextInt(5) == 0) {
+                filmDbStorage.removeLike(filmId, userId);
+            } else {
+                filmDbStorage.addLike(filmId, userId);
+            }
+        }
+
+        Map<Long, TreeSet<Long>> filmsByUser = new HashMap<>();
+        Map<Long, Integer> likesByFilm = new HashMap<>();
+        jdbcTemplate.query("select user_id, film_id from likes", rs -> {
+            filmsByUser.computeIfAbsent(rs.getLong("user_id"), id -> new TreeSet<>()).add(rs.getLong("film_id"));
+            likesByFilm.merge(rs.getLong("film_id"), 1, Integer::sum);
+        });
+
+        int nonEmpty = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<Long> expected = recommend(userId, filmsByUser, likesByFilm);
+            List<Long> actual = filmDbStorage.getRecommendationsFilms(userId).stream()
+                    .map(Film::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual, "Рекомендации пользователя " + userId);
+            if (!expected.isEmpty()) {
+                nonEmpty++;
+            }
+        }
+        assertTrue(nonEmpty > USERS / 2);
+    }
+
+    private static List<Long> recommend(long userId, Map<Long, TreeSet<Long>> filmsByUser,
+                                        Map<Long, Integer> likesByFilm) {
+        Set<Long> userFilms = filmsByUser.getOrDefault(userId, new TreeSet<>());
+        if (userFilms.isEmpty()) {
+            return List.of();
+        }
+
+        List<Map.Entry<Long, Double>> neighbours = new ArrayList<>();
+        for (Map.Entry<Long, TreeSet<Long>> other : filmsByUser.entrySet()) {
+            if (other.getKey() == userId) {
+                continue;
+            }
+            Set<Long> common = new HashSet<>(userFilms);
+            common.retainAll(other.getValue());
+            if (!common.isEmpty()) {
+                int union = userFilms.size() + other.getValue().size() - common.size();
+                neighbours.add(Map.entry(other.getKey(), (double) common.size() / union));
+            }
+        }
+        neighbours.sort(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                .thenComparing(Map.Entry::getKey));
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<Long, Double> neighbour : neighbours.subList(0, Math.min(NEIGHBOURS, neighbours.size()))) {
+            for (long filmId : filmsByUser.get(neighbour.getKey())) {
+                if (!userFilms.contains(filmId)) {
+                    scores.merge(filmId, neighbour.getValue(), Double::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                        .thenComparing(entry -> likesByFilm.getOrDefault(entry.getKey(), 0), Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
\ No newline at end of file
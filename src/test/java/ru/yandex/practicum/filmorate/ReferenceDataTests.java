@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReferenceDataTests {
+    private final FilmDbStorage filmDbStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void unknownIdsAreNotFound() {
+        assertThrows(DataNotFoundException.class, () -> filmDbStorage.getMpaById(100));
+        assertThrows(DataNotFoundException.class, () -> filmDbStorage.getGenreById(-1));
+    }
+
+    @Test
+    public void lookupsShareReferenceRecords() {
+        Mpa mpa = filmDbStorage.getMpaById(1);
+        Genre genre = filmDbStorage.getAllGenres().iterator().next();
+
+        assertSame(mpa, filmDbStorage.getMpaById(1));
+        assertSame(genre, filmDbStorage.getGenreById(1));
+        assertEquals("G", mpa.getName());
+        assertEquals("Комедия", genre.getName());
+        assertThrows(UnsupportedOperationException.class, () -> filmDbStorage.getAllGenres().clear());
+    }
+
+    @Test
+    public void refreshPicksUpTableChanges() {
+        jdbcTemplate.update("insert into genres (genre_id, name) values (100, 'Вестерн')");
+        try {
+            assertThrows(DataNotFoundException.class, () -> filmDbStorage.getGenreById(100));
+            filmDbStorage.refreshGenres();
+            assertEquals("Вестерн", filmDbStorage.getGenreById(100).getName());
+        } finally {
+            jdbcTemplate.update("delete from genres where genre_id = 100");
+            filmDbStorage.refreshGenres();
+        }
+        assertThrows(DataNotFoundException.class, () -> filmDbStorage.getGenreById(100));
+    }
+}
\ No newline at end of file
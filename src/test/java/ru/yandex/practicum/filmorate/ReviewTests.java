@@ -5,16 +5,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.dao.ReviewDaoImpl;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Sql({"/schema.sql", "/data_reviews.sql"}) //перед каждым тестом запускается создание исходной базы по заданным скриптам
 @SpringBootTest
@@ -23,6 +32,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 public class ReviewTests {
 
     private final ReviewDaoImpl reviewDao;
+    private final JdbcTemplate jdbcTemplate;
+    private final UserDbStorage userDbStorage;
 
     /**
      * Проверка метода получения отзыва по id (getReviewById).
@@ -211,4 +222,125 @@ public class ReviewTests {
         assertThat(review.getUseful())
                 .isEqualTo(1);//рейтинг отзыва должен стать 1 (+1 +1 -1 = 1)
     }
+
+    /**
+     * Проверка приращений полезности (createLike, deleteLike).
+     * Оценки ставятся, меняются на противоположные и снимаются из нескольких потоков,
+     * после чего полезность каждого отзыва должна равняться сумме его оценок в review_likes.
+     */
+    @Test
+    public void testUsefulMatchesSumOfVotes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long seed = thread;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 200; i++) {
+                        int reviewId = 1 + random.nextInt(4);
+                        int userId = 1 + random.nextInt(8);
+                        if (random.nextInt(3) == 0) {
+                            reviewDao.deleteLike(reviewId, userId);
+                        } else {
+                            reviewDao.createLike(reviewId, userId, random.nextBoolean() ? 1 : -1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int reviewId = 1; reviewId <= 4; reviewId++) {
+            Integer votes = jdbcTemplate.queryForObject("select coalesce(sum(isUseful), 0) from review_likes " +
+                    "where review_id = ?", Integer.class, reviewId);
+            Review review = reviewDao.getReviewById(reviewId);
+            assertEquals(votes, review.getUseful());
+            assertEquals(votes, review.getLikedUsers().values().stream().mapToInt(Integer::intValue).sum());
+        }
+    }
+
+    /**
+     * Проверка полезности после удаления пользователя (UserDbStorage.deleteUser).
+     * Оценки удаленного пользователя удаляются каскадно, и полезность отзывов должна по-прежнему
+     * равняться сумме оставшихся оценок, а рейтинг - совпадать с сортировкой таблицы reviews.
+     */
+    @Test
+    public void testUsefulAfterUserDeletion() {
+        Random random = new Random(7);
+        for (int reviewId = 1; reviewId <= 4; reviewId++) {
+            for (int userId = 1; userId <= 8; userId++) {
+                reviewDao.createLike(reviewId, userId, random.nextInt(4) == 0 ? -1 : 1);
+            }
+        }
+        reviewDao.getReviewsByFilm(0, 10); //рейтинг строится при первом чтении и дальше обновляется изменениями
+
+        userDbStorage.deleteUser(5);
+        userDbStorage.deleteUser(7);
+        userDbStorage.deleteUser(3); //вместе с пользователем удаляется его отзыв 3
+
+        for (int reviewId : List.of(1, 2, 4)) {
+            Integer votes = jdbcTemplate.queryForObject("select coalesce(sum(isUseful), 0) from review_likes " +
+                    "where review_id = ?", Integer.class, reviewId);
+            assertEquals(votes, reviewDao.getReviewById(reviewId).getUseful());
+        }
+        List<Integer> actual = new ArrayList<>();
+        for (Review review : reviewDao.getReviewsByFilm(0, 10)) {
+            actual.add(review.getReviewId());
+        }
+        assertEquals(jdbcTemplate.queryForList("select review_id from reviews order by useful desc, review_id",
+                Integer.class), actual);
+    }
+
+    /**
+     * Проверка рейтинга отзывов в памяти (getReviewsByFilm).
+     * После создания и удаления отзывов и оценок порядок отзывов должен совпадать с сортировкой таблицы reviews
+     * по убыванию полезности, а при равенстве - по возрастанию id.
+     */
+    @Test
+    public void testRankingMatchesUsefulOrder() {
+        Random random = new Random(19);
+        reviewDao.getReviewsByFilm(0, 10); //рейтинг строится при первом чтении и дальше обновляется изменениями
+        List<Integer> reviewIds = new ArrayList<>(List.of(1, 2, 3, 4));
+
+        for (int i = 0; i < 300; i++) {
+            int action = random.nextInt(10);
+            if (action == 0) {
+                Review review = new Review();
+                review.setFilmId(1L + random.nextInt(5));
+                review.setUserId(1L + random.nextInt(8));
+                review.setContent("Отзыв " + i);
+                review.setIsPositive(random.nextBoolean());
+                reviewIds.add(reviewDao.createReview(review));
+            } else if (action == 1 && reviewIds.size() > 1) {
+                reviewDao.deleteReviewById(reviewIds.remove(random.nextInt(reviewIds.size())));
+            } else if (action < 4) {
+                reviewDao.deleteLike(reviewIds.get(random.nextInt(reviewIds.size())), 1 + random.nextInt(8));
+            } else {
+                reviewDao.createLike(reviewIds.get(random.nextInt(reviewIds.size())), 1 + random.nextInt(8),
+                        random.nextBoolean() ? 1 : -1);
+            }
+
+            if (i % 25 == 0) {
+                for (int filmId = 0; filmId <= 5; filmId++) {
+                    int count = 1 + random.nextInt(10);
+                    List<Integer> expected = filmId == 0
+                            ? jdbcTemplate.queryForList("select review_id from reviews " +
+                            "order by useful desc, review_id limit ?", Integer.class, count)
+                            : jdbcTemplate.queryForList("select review_id from reviews where film_id = ? " +
+                            "order by useful desc, review_id limit ?", Integer.class, filmId, count);
+                    List<Integer> actual = new ArrayList<>();
+                    for (Review review : reviewDao.getReviewsByFilm(filmId, count)) {
+                        actual.add(review.getReviewId());
+                    }
+                    assertEquals(expected, actual);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,364 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.dao.DirectorDaoImpl;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поисковый индекс в памяти сверяется с запросами к таблицам films, directors и likes.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class SearchTests {
+    private static final int USERS = 20;
+    private static final int FILMS = 60;
+    private static final int SUGGESTIONS = 10;
+    private static final String[] TITLE_WORDS = {"star", "stars", "start", "wars", "war", "night", "nights",
+            "knight", "ring", "rings", "king", "return", "Звезда", "звёзды", "война"};
+    private static final String[] DIRECTOR_NAMES = {"Anna Stark", "Ivan Petrov", "Ivana Petrova", "David Lynch",
+            "Lynn Ramsay", "Андрей Тарковский", "Star Director"};
+    private static final String[] PREFIXES = {"s", "st", "star", "start", "w", "war", "wars", "k", "kin", "night",
+            "ni", "r", "ring", "lyn", "petr", "зв", "тар", "star w", "x"};
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final DirectorDaoImpl directorDao;
+    private final FilmSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+        directorDao.deleteAll();
+    }
+
+    @Test
+    public void searchMatchesLikeQuery() throws Exception {
+        List<Film> films = createLibrary(11);
+        List<User> users = new ArrayList<>(userDbStorage.findAllUsers());
+        Random random = new Random(12);
+        for (int i = 0; i < 300; i++) {
+            filmDbStorage.addLike(films.get(random.nextInt(films.size())).getId(),
+                    users.get(random.nextInt(users.size())).getId());
+        }
+
+        for (String query : new String[]{"a", "St", "star", "STAR W", "ar", "ing", "night", "knights", "вёз",
+                "ВОЙ", "petr", "lyn", "ramsay", ": ", "zzz"}) {
+            assertEquals(queryLike(query, true, false), ids(filmDbStorage.searchFilm(query, "title")), query);
+            assertEquals(queryLike(query, false, true), ids(filmDbStorage.searchFilm(query, "director")), query);
+            assertEquals(queryLike(query, true, true), ids(filmDbStorage.searchFilm(query, "title,director")),
+                    query);
+        }
+
+        Film film = films.get(0);
+        film.setName("Unique Renamed Title");
+        filmDbStorage.updateFilm(film);
+        filmDbStorage.deleteFilm(films.get(1).getId());
+        for (String query : new String[]{"renamed", "star", "wars"}) {
+            assertEquals(queryLike(query, true, true), ids(filmDbStorage.searchFilm(query, "title,director")),
+                    query);
+        }
+    }
+
+    @Test
+    public void rebuiltIndexMatchesLikeQuery() throws Exception {
+        createLibrary(17);
+        String[] queries = {"a", "STAR", "KNIGHT", "Ring", "ВОЙ", "LYNCH", "IVAN", "petr", "zzz"};
+        Map<String, List<Long>> byTitle = new HashMap<>();
+        Map<String, List<Long>> byDirector = new HashMap<>();
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr")); //в турецкой локали "I".toLowerCase() дает "ı"
+        try {
+            Map<Long, String> titles = new HashMap<>();
+            jdbcTemplate.query("select film_id, name from films", rs -> {
+                titles.put(rs.getLong("film_id"), rs.getString("name"));
+            });
+            Map<Long, String> names = new HashMap<>();
+            jdbcTemplate.query("select director_id, name from directors", rs -> {
+                names.put(rs.getLong("director_id"), rs.getString("name"));
+            });
+            Map<Long, List<Long>> directorIdsByFilm = new HashMap<>();
+            jdbcTemplate.query("select film_id, director_id from film_directors", rs -> {
+                long directorId = rs.getLong("director_id");
+                directorIdsByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(directorId);
+            });
+            searchIndex.rebuildFilms(titles);
+            searchIndex.rebuildDirectors(names, directorIdsByFilm);
+
+            for (String query : queries) {
+                byTitle.put(query, ids(filmDbStorage.searchFilm(query, "title")));
+                byDirector.put(query, ids(filmDbStorage.searchFilm(query, "director")));
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        for (String query : queries) { //lower() в H2 тоже зависит от локали, поэтому сверка - в исходной
+            assertEquals(queryLike(query, true, false), byTitle.get(query), query);
+            assertEquals(queryLike(query, false, true), byDirector.get(query), query);
+        }
+    }
+
+    @Test
+    public void fuzzySearchMatchesEditDistanceOverTables() throws Exception {
+        List<Film> films = createLibrary(15);
+        List<User> users = new ArrayList<>(userDbStorage.findAllUsers());
+        Random random = new Random(16);
+        for (int i = 0; i < 300; i++) {
+            filmDbStorage.addLike(films.get(random.nextInt(films.size())).getId(),
+                    users.get(random.nextInt(users.size())).getId());
+        }
+
+        for (String query : new String[]{"strat", "satr", "wras", "nigth", "knigt rign", "retrun", "kin", "Звезды",
+                "вона", "lnych", "petorv", "tarkovsky", "Тарковкий", "stra wars", "zzzzz"}) {
+            assertEquals(queryFuzzy(query, true, false), ids(filmDbStorage.searchFilm(query, "title", true)), query);
+            assertEquals(queryFuzzy(query, false, true), ids(filmDbStorage.searchFilm(query, "director", true)),
+                    query);
+            assertEquals(queryFuzzy(query, true, true),
+                    ids(filmDbStorage.searchFilm(query, "title,director", true)), query);
+        }
+    }
+
+    @Test
+    public void suggestionsMatchTablesAfterLikes() throws Exception {
+        List<Film> films = createLibrary(13);
+        List<User> users = new ArrayList<>(userDbStorage.findAllUsers());
+        Random random = new Random(14);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 150; i++) {
+                Film film = films.get(random.nextInt(films.size()));
+                long userId = users.get(random.nextInt(users.size())).getId();
+                if (random.nextInt(3) == 0) {
+                    filmDbStorage.removeLike(film.getId(), userId);
+                } else {
+                    filmDbStorage.addLike(film.getId(), userId);
+                }
+            }
+            searchIndex.applyPendingLikes();
+
+            for (String prefix : PREFIXES) {
+                assertEquals(expectedSuggestions(prefix, 7), describe(filmDbStorage.suggest(prefix, 7)),
+                        "round " + round + ", prefix '" + prefix + "'");
+            }
+        }
+    }
+
+    private List<Film> createLibrary(long seed) throws Exception {
+        Random random = new Random(seed);
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        List<Director> directors = new ArrayList<>();
+        for (String name : DIRECTOR_NAMES) {
+            Director director = new Director();
+            director.setName(name);
+            directorDao.createDirector(director);
+            directors.add(director);
+        }
+
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int word = 1 + random.nextInt(3); word > 0; word--) {
+                title.append(title.length() == 0 ? "" : random.nextBoolean() ? " " : ": ")
+                        .append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+            }
+            Film film = new Film(i, "description", title.toString(), LocalDate.of(2000, 1, 1), 100, new Mpa(1),
+                    List.of(new Genre(1)));
+            Set<Director> filmDirectors = new HashSet<>();
+            for (int director = random.nextInt(3); director > 0; director--) {
+                filmDirectors.add(directors.get(random.nextInt(directors.size())));
+            }
+            film.setDirectors(new ArrayList<>(filmDirectors));
+            films.add(filmDbStorage.createFilm(film));
+        }
+        return films;
+    }
+
+    private List<Long> queryLike(String query, boolean byTitle, boolean byDirector) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (byTitle) {
+            conditions.add("lower(f.name) like ?");
+            args.add("%" + query.toLowerCase(Locale.ROOT) + "%");
+        }
+        if (byDirector) {
+            conditions.add("exists (select 1 from film_directors fd " +
+                    "join directors d on fd.director_id = d.director_id " +
+                    "where fd.film_id = f.film_id and lower(d.name) like ?)");
+            args.add("%" + query.toLowerCase(Locale.ROOT) + "%");
+        }
+        return jdbcTemplate.queryForList("select f.film_id from films f left join likes l on f.film_id = l.film_id " +
+                "where " + String.join(" or ", conditions) + " group by f.film_id " +
+                "order by count(l.user_id) desc, f.film_id", Long.class, args.toArray());
+    }
+
+    /*
+     * Нечеткий поиск перебором по таблицам: точные совпадения подстроки имеют расстояние 0, иначе каждому слову
+     * запроса должно найтись слово названия или имени на допустимом расстоянии Левенштейна.
+     */
+    private List<Long> queryFuzzy(String query, boolean byTitle, boolean byDirector) {
+        Map<Long, Integer> distances = new HashMap<>();
+        if (byTitle) {
+            names("select film_id id, name from films").forEach((filmId, name) ->
+                    fuzzyDistance(query, name).ifPresent(distance -> distances.merge(filmId, distance, Math::min)));
+        }
+        if (byDirector) {
+            jdbcTemplate.query("select fd.film_id id, d.name from film_directors fd " +
+                    "join directors d on fd.director_id = d.director_id", rs -> {
+                long filmId = rs.getLong("id");
+                fuzzyDistance(query, rs.getString("name")).ifPresent(distance ->
+                        distances.merge(filmId, distance, Math::min));
+            });
+        }
+
+        Map<Long, Long> likes = new HashMap<>();
+        jdbcTemplate.query("select film_id, count(*) likes from likes group by film_id", rs -> {
+            likes.put(rs.getLong("film_id"), rs.getLong("likes"));
+        });
+        return distances.keySet().stream()
+                .sorted(Comparator.<Long, Integer>comparing(distances::get)
+                        .thenComparing(id -> likes.getOrDefault(id, 0L), Comparator.reverseOrder())
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+    }
+
+    private static Optional<Integer> fuzzyDistance(String query, String text) {
+        String document = text.toLowerCase();
+        String normalizedQuery = query.toLowerCase();
+        if (document.contains(normalizedQuery)) {
+            return Optional.of(0);
+        }
+
+        List<String> tokens = words(normalizedQuery);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        int total = 0;
+        for (String token : tokens) {
+            int allowed = token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+            int best = Integer.MAX_VALUE;
+            for (String word : words(document)) {
+                best = Math.min(best, levenshtein(token, word));
+            }
+            if (best > allowed) {
+                return Optional.empty();
+            }
+            total += best;
+        }
+        return Optional.of(total);
+    }
+
+    private static List<String> words(String text) {
+        return Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static int levenshtein(String source, String target) {
+        int[][] distance = new int[source.length() + 1][target.length() + 1];
+        for (int i = 0; i <= source.length(); i++) {
+            for (int j = 0; j <= target.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distance[i][j] = i + j;
+                } else {
+                    int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                    distance[i][j] = Math.min(Math.min(distance[i - 1][j] + 1, distance[i][j - 1] + 1),
+                            distance[i - 1][j - 1] + cost);
+                }
+            }
+        }
+        return distance[source.length()][target.length()];
+    }
+
+    /*
+     * Подсказки по таблицам: лучшие по лайкам фильмы и режиссеры, у которых слово названия или имени
+     * начинается с prefix, объединенные и упорядоченные по лайкам.
+     */
+    private List<String> expectedSuggestions(String prefix, int count) {
+        Map<Long, Long> filmLikes = new HashMap<>();
+        jdbcTemplate.query("select f.film_id, count(l.user_id) likes from films f " +
+                "left join likes l on f.film_id = l.film_id group by f.film_id", rs -> {
+            filmLikes.put(rs.getLong("film_id"), rs.getLong("likes"));
+        });
+        Map<Long, Long> directorLikes = new HashMap<>();
+        jdbcTemplate.query("select d.director_id, count(l.user_id) likes from directors d " +
+                "left join film_directors fd on d.director_id = fd.director_id " +
+                "left join likes l on fd.film_id = l.film_id group by d.director_id", rs -> {
+            directorLikes.put(rs.getLong("director_id"), rs.getLong("likes"));
+        });
+
+        List<Map.Entry<String, Long>> suggestions = new ArrayList<>();
+        suggestions.addAll(top("FILM", names("select film_id id, name from films"), filmLikes, prefix));
+        suggestions.addAll(top("DIRECTOR", names("select director_id id, name from directors"), directorLikes,
+                prefix));
+        return suggestions.stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private List<Map.Entry<String, Long>> top(String type, Map<Long, String> names, Map<Long, Long> likes,
+                                              String prefix) {
+        return names.entrySet().stream()
+                .filter(entry -> hasWordWithPrefix(entry.getValue().toLowerCase(), prefix))
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.<Long, Long>comparing(id -> likes.getOrDefault(id, 0L)).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(SUGGESTIONS)
+                .map(id -> Map.entry(type + id, likes.getOrDefault(id, 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, String> names(String sql) {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            names.put(rs.getLong("id"), rs.getString("name"));
+        });
+        return names;
+    }
+
+    private static boolean hasWordWithPrefix(String text, String prefix) {
+        for (int i = 0; i < text.length(); i++) {
+            boolean wordStart = Character.isLetterOrDigit(text.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+            if (wordStart && text.startsWith(prefix, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Long> ids(Collection<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(List<Suggestion> suggestions) {
+        return suggestions.stream()
+                .map(suggestion -> suggestion.getType() + suggestion.getId())
+                .collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.ItemSimilarityIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Модель сходства фильмов сверяется с косинусным сходством, посчитанным по строкам таблицы likes.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class SimilarFilmsTests {
+    private static final int USERS = 25;
+    private static final int FILMS = 30;
+    private static final int NEIGHBOURS = 20; //filmorate.similarity.neighbours
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final ItemSimilarityIndex similarityIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+        similarityIndex.rebuild();
+    }
+
+    @Test
+    public void similarFilmsMatchLikesTable() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            filmDbStorage.createFilm(new Film(i, "description", "film" + i, LocalDate.of(2000, 1, 1), 100,
+                    new Mpa(1), new ArrayList<>()));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 250; i++) {
+            filmDbStorage.addLike(1 + random.nextInt(FILMS), 1 + random.nextInt(USERS));
+        }
+        similarityIndex.rebuild();
+
+        Map<Long, Set<Long>> usersByFilm = new HashMap<>();
+        jdbcTemplate.query("select user_id, film_id from likes", rs -> {
+            usersByFilm.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>()).add(rs.getLong("user_id"));
+        });
+
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            List<Long> actual = filmDbStorage.getSimilarFilms(filmId, NEIGHBOURS).stream()
+                    .map(Film::getId)
+                    .collect(Collectors.toList());
+            assertEquals(similar(filmId, usersByFilm), actual, "Похожие на фильм " + filmId);
+        }
+        assertEquals(similar(1, usersByFilm).subList(0, 3), filmDbStorage.getSimilarFilms(1, 3).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void nonPositiveCountIsRejected() throws Exception {
+        userDbStorage.createUser(new User(1, "user", "user@mail.ru", "user", LocalDate.of(1990, 1, 1)));
+        filmDbStorage.createFilm(new Film(1, "description", "film", LocalDate.of(2000, 1, 1), 100,
+                new Mpa(1), new ArrayList<>()));
+
+        assertThrows(ValidationException.class, () -> filmDbStorage.getSimilarFilms(1, 0));
+        assertThrows(ValidationException.class, () -> filmDbStorage.getSimilarFilms(1, -1));
+    }
+
+    private static List<Long> similar(long filmId, Map<Long, Set<Long>> usersByFilm) {
+        Set<Long> users = usersByFilm.getOrDefault(filmId, Set.of());
+        List<Map.Entry<Long, Float>> scores = new ArrayList<>();
+        for (Map.Entry<Long, Set<Long>> other : usersByFilm.entrySet()) {
+            if (other.getKey() == filmId) {
+                continue;
+            }
+            Set<Long> common = new HashSet<>(users);
+            common.retainAll(other.getValue());
+            if (!common.isEmpty()) {
+                scores.add(Map.entry(other.getKey(),
+                        (float) (common.size() / Math.sqrt((double) users.size() * other.getValue().size()))));
+            }
+        }
+        return scores.stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(NEIGHBOURS)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
\ No newline at end of file
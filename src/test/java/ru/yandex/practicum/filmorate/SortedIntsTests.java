@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.index.SortedInts;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIntsTests {
+
+    @Test
+    public void operationsMatchTreeSet() {
+        Random random = new Random(6);
+        for (int round = 0; round < 200; round++) {
+            TreeSet<Integer> first = new TreeSet<>();
+            TreeSet<Integer> second = new TreeSet<>();
+            int[] firstArray = SortedInts.EMPTY;
+            int[] secondArray = SortedInts.EMPTY;
+
+            for (int i = 0; i < 60; i++) {
+                int value = random.nextInt(50);
+                if (random.nextInt(3) == 0) {
+                    first.remove(value);
+                    firstArray = SortedInts.delete(firstArray, value);
+                } else {
+                    first.add(value);
+                    firstArray = SortedInts.insert(firstArray, value);
+                }
+                value = random.nextInt(50);
+                second.add(value);
+                secondArray = SortedInts.insert(secondArray, value);
+            }
+
+            assertArrayEquals(toArray(first), firstArray);
+            assertArrayEquals(toArray(second), secondArray);
+
+            TreeSet<Integer> common = new TreeSet<>(first);
+            common.retainAll(second);
+            TreeSet<Integer> all = new TreeSet<>(first);
+            all.addAll(second);
+            assertArrayEquals(toArray(common), SortedInts.intersection(firstArray, secondArray));
+            assertEquals(common.size(), SortedInts.intersectionSize(firstArray, secondArray));
+            assertArrayEquals(toArray(all), SortedInts.union(firstArray, secondArray));
+            for (int value = 0; value < 50; value++) {
+                assertEquals(first.contains(value), SortedInts.contains(firstArray, value));
+            }
+        }
+    }
+
+    @Test
+    public void ofSortsAndRemovesDuplicates() {
+        assertArrayEquals(new int[]{1, 3, 7}, SortedInts.of(List.of(7, 1, 3, 7, 1)));
+        assertArrayEquals(SortedInts.EMPTY, SortedInts.of(List.of()));
+    }
+
+    @Test
+    public void deleteAndInsertKeepUnchangedArrays() {
+        int[] values = {1, 2, 3};
+        assertSame(values, SortedInts.insert(values, 2));
+        assertSame(values, SortedInts.delete(values, 4));
+        assertSame(SortedInts.EMPTY, SortedInts.delete(new int[]{5}, 5));
+    }
+
+    @Test
+    public void idsOutsideIntRangeAreRejected() {
+        assertTrue(SortedInts.isId(0));
+        assertFalse(SortedInts.isId(-1));
+        assertFalse(SortedInts.isId(1L + Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> SortedInts.toId(-5));
+    }
+
+    private static int[] toArray(Collection<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
\ No newline at end of file
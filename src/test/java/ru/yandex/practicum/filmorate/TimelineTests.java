@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.dao.FeedWriter;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Лента друзей в памяти сверяется с тем же запросом к таблицам feeds и friends.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class TimelineTests {
+    private static final int USERS = 10;
+    private static final int FILMS = 5;
+    private final FilmDbStorage filmDbStorage;
+    private final UserDbStorage userDbStorage;
+    private final FeedWriter feedWriter;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void timelineMatchesFeedsOfCurrentFriends() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            filmDbStorage.createFilm(new Film(i, "description", "film" + i, LocalDate.of(2000, 1, 1), 100,
+                    new Mpa(1), List.of(new Genre(1))));
+        }
+
+        Random random = new Random(19);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 60; i++) {
+                long userId = 1 + random.nextInt(USERS);
+                long otherId = 1 + random.nextInt(USERS);
+                int action = random.nextInt(8);
+                if (action == 0 && userId != otherId) {
+                    userDbStorage.removeFriend(userId, otherId);
+                } else if (action < 3 && userId != otherId) {
+                    userDbStorage.addFriend(userId, otherId);
+                } else if (action < 6) {
+                    filmDbStorage.addLike(1 + random.nextInt(FILMS), userId);
+                } else {
+                    filmDbStorage.removeLike(1 + random.nextInt(FILMS), userId);
+                }
+            }
+            feedWriter.flush();
+
+            long lastEventId = jdbcTemplate.queryForObject("select max(event_id) from feeds", Long.class);
+            for (long userId = 1; userId <= USERS; userId++) {
+                assertEquals(queryTimeline(userId, Long.MAX_VALUE, 20), eventIds(userDbStorage.getTimeline(userId,
+                        null, null)));
+                long beforeId = 1 + random.nextInt((int) lastEventId);
+                assertEquals(queryTimeline(userId, beforeId, 7), eventIds(userDbStorage.getTimeline(userId,
+                        beforeId, 7)));
+            }
+        }
+
+        assertThrows(ValidationException.class, () -> userDbStorage.getTimeline(1, null, 0));
+        assertThrows(ValidationException.class, () -> userDbStorage.getTimeline(1, null, 1001));
+    }
+
+    private List<Long> queryTimeline(long userId, long beforeId, int limit) {
+        return jdbcTemplate.queryForList("select f.event_id from feeds f " +
+                "join friends fr on fr.friend_id = f.user_id " +
+                "where fr.user_id = ? and f.event_id < ? order by f.event_id desc limit ?",
+                Long.class, userId, beforeId, limit);
+    }
+
+    private static List<Long> eventIds(List<Feed> feeds) {
+        return feeds.stream().map(Feed::getEventId).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.DataNotFoundException;
+import ru.yandex.practicum.filmorate.index.UserCache;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Пользователи из кэша сверяются со строками таблицы users после изменений через хранилище.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS) //события ленты меняют счетчик event_id
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserCacheTests {
+    private static final int USERS = 20;
+    private final UserDbStorage userDbStorage;
+    private final FilmDbStorage filmDbStorage;
+    private final UserCache userCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        filmDbStorage.deleteAll();
+        userDbStorage.deleteAll();
+    }
+
+    @Test
+    public void unknownIdIsRejectedBeforeCache() {
+        long misses = userCache.getStats().getMisses();
+
+        assertThrows(DataNotFoundException.class, () -> userDbStorage.getUserById(1));
+        assertThrows(DataNotFoundException.class, () -> userDbStorage.getUserById(1));
+
+        assertEquals(misses, userCache.getStats().getMisses());
+        assertEquals(0, userCache.getStats().getSize());
+    }
+
+    @Test
+    public void cachedUsersMatchUsersTable() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            userDbStorage.createUser(new User(i, "user" + i, "user" + i + "@mail.ru", "user" + i,
+                    LocalDate.of(1990, 1, 1)));
+        }
+        Set<Long> deleted = new HashSet<>();
+        Random random = new Random(25);
+        for (int i = 0; i < 300; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            int operation = random.nextInt(10);
+            if (deleted.contains(userId)) {
+                assertThrows(DataNotFoundException.class, () -> userDbStorage.getUserById(userId));
+            } else if (operation == 0) {
+                userDbStorage.deleteUser(userId);
+                deleted.add(userId);
+            } else if (operation < 3) {
+                userDbStorage.updateUser(new User(userId, "name" + i, "user" + userId + "@mail.ru", "login" + i,
+                        LocalDate.of(1990, 1, 1)));
+            } else {
+                User user = userDbStorage.getUserById(userId);
+                assertUserMatchesTable(user);
+                user.setName("changed by caller"); //кэш отдает копию
+            }
+        }
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            if (!deleted.contains(userId)) {
+                assertUserMatchesTable(userDbStorage.getUserById(userId));
+            }
+        }
+    }
+
+    private void assertUserMatchesTable(User user) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("select name, email, login from users where user_id = ?",
+                user.getId());
+        assertEquals(row.get("NAME"), user.getName());
+        assertEquals(row.get("EMAIL"), user.getEmail());
+        assertEquals(row.get("LOGIN"), user.getLogin());
+    }
+}
\ No newline at end of file